@@ -0,0 +1,73 @@
+package com.schambeck.webclient.cache;
+
+import com.schambeck.webclient.domain.Invoice;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link CompactInvoiceCache} with a {@code HashMap<Long, Invoice>} holding the same invoices.
+ * Run with {@code make jmh JMH_ARGS="InvoiceCacheFootprintBenchmark -prof gc"}, the heap retained per invoice
+ * is printed once the store is filled, the benchmark itself measures a lookup and what it allocates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class InvoiceCacheFootprintBenchmark {
+
+    @Param({"hashmap", "compact"})
+    private String store;
+
+    @Param({"1000000"})
+    private int invoices;
+
+    private Map<Long, Invoice> map;
+    private InvoiceCache cache;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        long before = usedHeap();
+        if ("compact".equals(store)) {
+            cache = new CompactInvoiceCache(new SimpleMeterRegistry(), invoices, Duration.ofDays(1));
+        } else {
+            map = new HashMap<>();
+        }
+        LocalDate first = LocalDate.parse("2021-02-01");
+        for (long id = 1; id <= invoices; id++) {
+            Invoice invoice = new Invoice(id, first.plusDays(id % 365), BigDecimal.valueOf(id * 1005, 2));
+            if (cache != null) {
+                cache.put(invoice);
+            } else {
+                map.put(id, invoice);
+            }
+        }
+        long retained = usedHeap() - before;
+        System.out.printf("%n%s: %d invoices retain %d bytes, %.1f bytes per invoice%n",
+                store, invoices, retained, (double) retained / invoices);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @Benchmark
+    public Invoice get() {
+        long id = ThreadLocalRandom.current().nextLong(1, invoices + 1);
+        return cache != null ? cache.get(id).orElse(null) : map.get(id);
+    }
+
+}
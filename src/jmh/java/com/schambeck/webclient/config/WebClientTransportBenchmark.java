@@ -0,0 +1,138 @@
+package com.schambeck.webclient.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.schambeck.webclient.domain.Invoice;
+import okhttp3.Protocol;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.zip.GZIPOutputStream;
+
+import static com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS_TIMESTAMPS;
+
+/**
+ * Compares HTTP/1.1 and h2c, with and without response compression, on the WebClient built by
+ * {@link WebClientConfig}. Run with {@code make jmh-transport}, the {@code bytes} and {@code connections}
+ * counters report the response bytes sent and the connections opened by the stand-in server per iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class WebClientTransportBenchmark {
+
+    @Param({"http11", "h2c"})
+    private String protocol;
+
+    @Param({"false", "true"})
+    private boolean compression;
+
+    @Param({"1000"})
+    private int invoices;
+
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong connectionsOpened = new AtomicLong();
+
+    private MockWebServer server;
+    private AnnotationConfigApplicationContext context;
+    private WebClient client;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Transfer {
+        public long bytes;
+        public long connections;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(WRITE_DATES_AS_TIMESTAMPS);
+        List<Invoice> all = LongStream.rangeClosed(1, invoices)
+                .mapToObj(id -> new Invoice(id, LocalDate.parse("2021-02-01").plusDays(id % 365), BigDecimal.valueOf(id * 10)))
+                .collect(Collectors.toList());
+        byte[] plain = mapper.writeValueAsBytes(all);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(plain);
+        }
+        byte[] gzipped = compressed.toByteArray();
+
+        server = new MockWebServer();
+        if ("h2c".equals(protocol)) {
+            server.setProtocols(Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE));
+        }
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                if (request.getSequenceNumber() == 0) {
+                    connectionsOpened.incrementAndGet();
+                }
+                String acceptEncoding = request.getHeader("Accept-Encoding");
+                MockResponse response = new MockResponse().addHeader("Content-Type", "application/json");
+                if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                    bytesSent.addAndGet(gzipped.length);
+                    return response.setBody(new Buffer().write(gzipped)).addHeader("Content-Encoding", "gzip");
+                }
+                bytesSent.addAndGet(plain.length);
+                return response.setBody(new Buffer().write(plain));
+            }
+        });
+        server.start();
+
+        context = new AnnotationConfigApplicationContext();
+        context.getBeanFactory().setConversionService(ApplicationConversionService.getSharedInstance());
+        Map<String, Object> properties = Map.of(
+                "app.rest-app.base-url", server.url("/").toString(),
+                "app.rest-app.http.protocols", protocol,
+                "app.rest-app.http.compression", compression);
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", properties));
+        context.registerBean(WebClient.Builder.class, WebClient::builder);
+        context.register(WebClientConfig.class);
+        context.refresh();
+        client = context.getBean(WebClient.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        server.shutdown();
+    }
+
+    @Benchmark
+    public List<Invoice> findAll(Transfer transfer) {
+        List<Invoice> result = client.get()
+                .uri("/invoices")
+                .retrieve()
+                .bodyToMono(new ParameterizedTypeReference<List<Invoice>>() {})
+                .block();
+        transfer.bytes += bytesSent.getAndSet(0);
+        transfer.connections += connectionsOpened.getAndSet(0);
+        return result;
+    }
+
+}
@@ -0,0 +1,66 @@
+package com.schambeck.webclient.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.schambeck.webclient.domain.Invoice;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import static com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS_TIMESTAMPS;
+
+/**
+ * Compares the reflective bean (de)serializers with {@link InvoiceModule} on a single invoice.
+ * Run with {@code make jmh JMH_ARGS="InvoiceCodecBenchmark -prof gc"} to see the allocations per invoice.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class InvoiceCodecBenchmark {
+
+    @Param({"reflective", "module"})
+    private String codec;
+
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private Invoice invoice;
+    private byte[] json;
+    private ByteArrayOutputStream output;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(WRITE_DATES_AS_TIMESTAMPS);
+        if ("module".equals(codec)) {
+            mapper.registerModule(new InvoiceModule());
+        }
+        writer = mapper.writerFor(Invoice.class);
+        reader = mapper.readerFor(Invoice.class);
+        invoice = new Invoice(1L, LocalDate.parse("2021-02-01"), new BigDecimal("1234.50"));
+        json = writer.writeValueAsBytes(invoice);
+        output = new ByteArrayOutputStream(256);
+    }
+
+    @Benchmark
+    public int encode() throws IOException {
+        output.reset();
+        writer.writeValue(output, invoice);
+        return output.size();
+    }
+
+    @Benchmark
+    public Invoice decode() throws IOException {
+        return reader.readValue(json);
+    }
+
+}
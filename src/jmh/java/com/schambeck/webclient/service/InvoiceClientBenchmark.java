@@ -0,0 +1,145 @@
+package com.schambeck.webclient.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.schambeck.webclient.aggregate.InvoiceAggregator;
+import com.schambeck.webclient.cache.NoOpInvoiceCache;
+import com.schambeck.webclient.cache.RevalidationCache;
+import com.schambeck.webclient.domain.Invoice;
+import com.schambeck.webclient.limit.ConcurrencyLimit;
+import com.schambeck.webclient.limit.RetryBudget;
+import com.schambeck.webclient.reactive.Batching;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS_TIMESTAMPS;
+import static javax.validation.Validation.buildDefaultValidatorFactory;
+
+/**
+ * Compares the WebClient and RestTemplate invoice clients against a local MockWebServer.
+ * Run with {@code make jmh}, JMH options such as {@code -t 8} or {@code -p invoices=1000}
+ * go through {@code -Djmh.args}, allocation rates are reported by the default {@code -prof gc}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class InvoiceClientBenchmark {
+
+    @Param({"webclient", "resttemplate"})
+    private String client;
+
+    @Param({"1", "100", "1000"})
+    private int invoices;
+
+    @Param({"0", "5"})
+    private int latencyMillis;
+
+    private MockWebServer server;
+    private CloseableHttpClient httpClient;
+    private InvoiceService webClientService;
+    private InvoiceRestTemplateService restTemplateService;
+    private Invoice invoice;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(WRITE_DATES_AS_TIMESTAMPS);
+
+        invoice = new Invoice(1L, LocalDate.parse("2021-02-01"), BigDecimal.valueOf(1000));
+        List<Invoice> all = LongStream.rangeClosed(1, invoices)
+                .mapToObj(id -> new Invoice(id, LocalDate.parse("2021-02-01").plusDays(id % 365), BigDecimal.valueOf(id * 10)))
+                .collect(Collectors.toList());
+        String single = mapper.writeValueAsString(invoice);
+        String array = mapper.writeValueAsString(all);
+        StringBuilder ndjson = new StringBuilder();
+        for (Invoice each : all) {
+            ndjson.append(mapper.writeValueAsString(each)).append('\n');
+        }
+
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                MockResponse response = new MockResponse().setHeadersDelay(latencyMillis, TimeUnit.MILLISECONDS);
+                String accept = request.getHeader("Accept");
+                if ("DELETE".equals(request.getMethod())) {
+                    return response.setResponseCode(204);
+                }
+                if ("GET".equals(request.getMethod()) && "/invoices".equals(request.getPath())) {
+                    return accept != null && accept.startsWith("application/x-ndjson")
+                            ? response.setBody(ndjson.toString()).addHeader("Content-Type", "application/x-ndjson")
+                            : response.setBody(array).addHeader("Content-Type", "application/json");
+                }
+                return response.setBody(single).addHeader("Content-Type", "application/json");
+            }
+        });
+        server.start();
+        String baseUrl = server.url("/").toString();
+
+        webClientService = new InvoiceServiceImpl(WebClient.create(baseUrl), new NoOpInvoiceCache(), RevalidationCache.disabled(), InvoiceAggregator.disabled(), buildDefaultValidatorFactory().getValidator(),
+                InvoiceResilience.defaults(), Batching.disabled(), new SimpleMeterRegistry());
+
+        httpClient = HttpClients.custom().setMaxConnTotal(200).setMaxConnPerRoute(200).build();
+        RestTemplate restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+        restTemplate.setUriTemplateHandler(new DefaultUriBuilderFactory(baseUrl));
+        restTemplateService = new InvoiceRestTemplateServiceImpl(restTemplate, ConcurrencyLimit.unlimited(), RetryBudget.unlimited(), new SimpleMeterRegistry());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        httpClient.close();
+        server.shutdown();
+    }
+
+    private boolean webClient() {
+        return "webclient".equals(client);
+    }
+
+    @Benchmark
+    public List<Invoice> findAll() {
+        return webClient() ? webClientService.findAll().collectList().block() : restTemplateService.findAll();
+    }
+
+    @Benchmark
+    public Invoice findById() {
+        return webClient() ? webClientService.findById(1L).block() : restTemplateService.findById(1L);
+    }
+
+    @Benchmark
+    public Invoice create() {
+        return webClient() ? webClientService.create(invoice).block() : restTemplateService.create(invoice);
+    }
+
+    @Benchmark
+    public Invoice update() {
+        return webClient() ? webClientService.update(1L, invoice).block() : restTemplateService.update(1L, invoice);
+    }
+
+    @Benchmark
+    public Object delete() {
+        return webClient() ? webClientService.delete(1L).block() : restTemplateService.delete(1L);
+    }
+
+}
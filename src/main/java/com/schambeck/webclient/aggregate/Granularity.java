@@ -0,0 +1,23 @@
+package com.schambeck.webclient.aggregate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+public enum Granularity {
+
+    DAY {
+        @Override
+        String period(LocalDate issued) {
+            return issued.toString();
+        }
+    },
+    MONTH {
+        @Override
+        String period(LocalDate issued) {
+            return YearMonth.from(issued).toString();
+        }
+    };
+
+    abstract String period(LocalDate issued);
+
+}
@@ -0,0 +1,240 @@
+package com.schambeck.webclient.aggregate;
+
+import com.schambeck.webclient.cache.CompactInvoiceTable;
+import com.schambeck.webclient.domain.Invoice;
+import com.schambeck.webclient.domain.InvoiceAggregate;
+import com.schambeck.webclient.domain.InvoiceAggregates;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-day invoice count, total, min and max, loaded by streaming over all invoices once and then kept up to date
+ * with every create, update and delete going through the service, so queries are answered from memory.
+ * Days are merged into months and ranges at query time. Updates and deletes only carry the id, so the issued date
+ * and total of every invoice are kept as well, in primitive form by a {@link CompactInvoiceTable}, while a day only
+ * keeps its count, total, min and max. Nothing is kept before the first query loads. Changes made upstream by
+ * other clients are only seen after {@code maxAge}, when the next query loads again, a {@code maxAge} of zero
+ * loads on every query.
+ */
+public class InvoiceAggregator {
+
+    private final long maxAgeNanos;
+    private final LongSupplier ticker;
+    private State state = new State();
+    private long loadedAt;
+    private boolean loaded;
+    private long version;
+
+    public InvoiceAggregator(Duration maxAge) {
+        this(maxAge, System::nanoTime);
+    }
+
+    InvoiceAggregator(Duration maxAge, LongSupplier ticker) {
+        this.maxAgeNanos = maxAge.toNanos();
+        this.ticker = ticker;
+    }
+
+    public static InvoiceAggregator disabled() {
+        return new InvoiceAggregator(Duration.ZERO);
+    }
+
+    public synchronized boolean isFresh() {
+        return loaded && ticker.getAsLong() - loadedAt < maxAgeNanos;
+    }
+
+    /**
+     * Rebuilds the aggregates from all invoices without keeping the stream. If invoices were changed while
+     * loading, the loaded aggregates are still used but count as stale, so the next query loads again.
+     */
+    public Mono<Void> load(Flux<Invoice> invoices) {
+        return Mono.defer(() -> {
+            long started = version();
+            State loading = new State();
+            return invoices.doOnNext(loading::put)
+                    .then(Mono.fromRunnable(() -> install(loading, started)));
+        });
+    }
+
+    private synchronized long version() {
+        return version;
+    }
+
+    private synchronized void install(State loading, long started) {
+        state = loading;
+        loadedAt = ticker.getAsLong();
+        loaded = version == started;
+    }
+
+    /**
+     * Applies a change to the loaded aggregates. Until they are loaded, or while they count as stale because
+     * invoices were changed while loading, the change only marks a load in progress as stale.
+     */
+    public synchronized void put(Invoice invoice) {
+        version++;
+        if (loaded) {
+            state.put(invoice);
+        }
+    }
+
+    public synchronized void remove(Long id) {
+        version++;
+        if (loaded) {
+            state.remove(id);
+        }
+    }
+
+    /**
+     * @param from first issued date included, or {@code null} for no lower bound
+     * @param to   last issued date included, or {@code null} for no upper bound
+     */
+    public synchronized InvoiceAggregates query(Granularity granularity, LocalDate from, LocalDate to) {
+        NavigableMap<LocalDate, Day> days = state.days;
+        if (from != null) {
+            days = days.tailMap(from, true);
+        }
+        if (to != null) {
+            days = days.headMap(to, true);
+        }
+        Summary range = new Summary();
+        List<InvoiceAggregate> periods = new ArrayList<>();
+        Summary period = null;
+        String current = null;
+        for (Map.Entry<LocalDate, Day> entry : days.entrySet()) {
+            String key = granularity.period(entry.getKey());
+            if (!key.equals(current)) {
+                if (period != null) {
+                    periods.add(period.toAggregate(current));
+                }
+                current = key;
+                period = new Summary();
+            }
+            period.add(entry.getValue());
+            range.add(entry.getValue());
+        }
+        if (period != null) {
+            periods.add(period.toAggregate(current));
+        }
+        return new InvoiceAggregates(range.toAggregate((from == null ? ".." : from.toString()) + "/" + (to == null ? ".." : to.toString())), periods);
+    }
+
+    private static class State {
+
+        private final CompactInvoiceTable byId = CompactInvoiceTable.growable();
+        private final TreeMap<LocalDate, Day> days = new TreeMap<>();
+
+        void put(Invoice invoice) {
+            if (invoice.getIssued() == null || invoice.getTotal() == null) {
+                return;
+            }
+            if (!CompactInvoiceTable.isStorable(invoice.getId())) {
+                day(invoice.getIssued()).addUntracked(invoice.getTotal());
+                return;
+            }
+            remove(invoice.getId());
+            byId.set(byId.insert(invoice.getId()), invoice);
+            day(invoice.getIssued()).add(invoice.getTotal());
+        }
+
+        private Day day(LocalDate issued) {
+            return days.computeIfAbsent(issued, date -> new Day());
+        }
+
+        void remove(Long id) {
+            int slot = byId.find(id);
+            if (slot < 0) {
+                return;
+            }
+            Invoice previous = byId.get(slot);
+            byId.delete(slot);
+            Day day = days.get(previous.getIssued());
+            if (!day.remove(previous.getTotal())) {
+                return;
+            }
+            if (day.count == 0) {
+                days.remove(previous.getIssued());
+            } else {
+                day.resetExtremes();
+                byId.forEachTotalIssuedOn(previous.getIssued(), day::include);
+            }
+        }
+
+    }
+
+    /**
+     * Count, total, min and max of the invoices issued on a day. Removing the min or max leaves it unknown, it is
+     * then recomputed from the invoices of the day found in the table, a scan only needed for those removals.
+     * Invoices without an id the table can hold are never removed, their own min and max are kept apart.
+     */
+    private static class Day {
+
+        private long count;
+        private BigDecimal total = BigDecimal.ZERO;
+        private BigDecimal min;
+        private BigDecimal max;
+        private BigDecimal untrackedMin;
+        private BigDecimal untrackedMax;
+
+        void add(BigDecimal amount) {
+            count++;
+            total = total.add(amount);
+            include(amount);
+        }
+
+        void addUntracked(BigDecimal amount) {
+            add(amount);
+            untrackedMin = untrackedMin == null || amount.compareTo(untrackedMin) < 0 ? amount : untrackedMin;
+            untrackedMax = untrackedMax == null || amount.compareTo(untrackedMax) > 0 ? amount : untrackedMax;
+        }
+
+        /**
+         * @return whether the min or max went with the amount, or the day is empty now
+         */
+        boolean remove(BigDecimal amount) {
+            count--;
+            total = total.subtract(amount);
+            return count == 0 || amount.compareTo(min) == 0 || amount.compareTo(max) == 0;
+        }
+
+        void resetExtremes() {
+            min = untrackedMin;
+            max = untrackedMax;
+        }
+
+        void include(BigDecimal amount) {
+            min = min == null || amount.compareTo(min) < 0 ? amount : min;
+            max = max == null || amount.compareTo(max) > 0 ? amount : max;
+        }
+
+    }
+
+    private static class Summary {
+
+        private long count;
+        private BigDecimal total = BigDecimal.ZERO;
+        private BigDecimal min;
+        private BigDecimal max;
+
+        void add(Day day) {
+            count += day.count;
+            total = total.add(day.total);
+            min = min == null || day.min.compareTo(min) < 0 ? day.min : min;
+            max = max == null || day.max.compareTo(max) > 0 ? day.max : max;
+        }
+
+        InvoiceAggregate toAggregate(String period) {
+            return new InvoiceAggregate(period, count, total, min, max);
+        }
+
+    }
+
+}
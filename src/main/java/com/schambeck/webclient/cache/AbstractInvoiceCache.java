@@ -0,0 +1,65 @@
+package com.schambeck.webclient.cache;
+
+import com.schambeck.webclient.domain.Invoice;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Optional;
+
+/**
+ * Base class of the bounded invoice caches, keeping the hit, miss and eviction counters.
+ */
+abstract class AbstractInvoiceCache implements InvoiceCache {
+
+    static final String CACHE_NAME = "invoices";
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    AbstractInvoiceCache(MeterRegistry registry, CacheEviction eviction) {
+        String policy = eviction.name().toLowerCase();
+        hits = Counter.builder("cache.gets").tag("cache", CACHE_NAME).tag("policy", policy).tag("result", "hit")
+                .description("Number of invoice cache hits").register(registry);
+        misses = Counter.builder("cache.gets").tag("cache", CACHE_NAME).tag("policy", policy).tag("result", "miss")
+                .description("Number of invoice cache misses").register(registry);
+        evictions = Counter.builder("cache.evictions").tag("cache", CACHE_NAME).tag("policy", policy)
+                .description("Number of invoices evicted by size or expiration").register(registry);
+    }
+
+    @Override
+    public Optional<Invoice> get(Long id) {
+        Invoice invoice = id == null ? null : lookup(id);
+        if (invoice == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(invoice);
+    }
+
+    @Override
+    public void put(Invoice invoice) {
+        if (invoice != null && invoice.getId() != null) {
+            store(invoice.getId(), invoice);
+        }
+    }
+
+    @Override
+    public void evict(Long id) {
+        if (id != null) {
+            remove(id);
+        }
+    }
+
+    void recordEviction() {
+        evictions.increment();
+    }
+
+    abstract Invoice lookup(Long id);
+
+    abstract void store(Long id, Invoice invoice);
+
+    abstract void remove(Long id);
+
+}
@@ -0,0 +1,10 @@
+package com.schambeck.webclient.cache;
+
+public enum CacheEviction {
+
+    NONE,
+    LRU,
+    TINY_LFU,
+    COMPACT
+
+}
@@ -0,0 +1,107 @@
+package com.schambeck.webclient.cache;
+
+import com.schambeck.webclient.domain.Invoice;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Invoice cache for millions of entries, keeping the invoices in a {@link CompactInvoiceTable} instead of as
+ * {@link Invoice} objects, with the write time and referenced bit of each one in arrays alongside, about 40 bytes
+ * per invoice instead of well over 100. When full, a CLOCK sweep evicts the first invoice not read since the hand
+ * last passed it.
+ */
+public class CompactInvoiceCache extends AbstractInvoiceCache {
+
+    private final int maximumSize;
+    private final long timeToLiveNanos;
+    private final LongSupplier ticker;
+    private final CompactInvoiceTable table;
+    private final long[] written;
+    private final boolean[] referenced;
+    private int hand;
+
+    public CompactInvoiceCache(MeterRegistry registry, int maximumSize, Duration timeToLive) {
+        this(registry, maximumSize, timeToLive, System::nanoTime);
+    }
+
+    CompactInvoiceCache(MeterRegistry registry, int maximumSize, Duration timeToLive, LongSupplier ticker) {
+        super(registry, CacheEviction.COMPACT);
+        this.maximumSize = maximumSize;
+        this.timeToLiveNanos = timeToLive.toNanos();
+        this.ticker = ticker;
+        this.table = CompactInvoiceTable.fixed(maximumSize, this::move);
+        this.written = new long[table.capacity()];
+        this.referenced = new boolean[table.capacity()];
+    }
+
+    @Override
+    synchronized Invoice lookup(Long id) {
+        int slot = table.find(id);
+        if (slot < 0) {
+            return null;
+        }
+        if (ticker.getAsLong() - written[slot] >= timeToLiveNanos) {
+            table.delete(slot);
+            recordEviction();
+            return null;
+        }
+        referenced[slot] = true;
+        return table.get(slot);
+    }
+
+    @Override
+    synchronized void store(Long id, Invoice invoice) {
+        if (!CompactInvoiceTable.isStorable(id) || maximumSize <= 0) {
+            return;
+        }
+        int slot = table.find(id);
+        if (slot < 0) {
+            if (table.size() == maximumSize) {
+                evictOne();
+            }
+            slot = table.insert(id);
+        }
+        table.set(slot, invoice);
+        written[slot] = ticker.getAsLong();
+        referenced[slot] = false;
+    }
+
+    @Override
+    synchronized void remove(Long id) {
+        int slot = table.find(id);
+        if (slot >= 0) {
+            table.delete(slot);
+        }
+    }
+
+    synchronized int size() {
+        return table.size();
+    }
+
+    /**
+     * CLOCK: clears the referenced bit of the invoices the hand passes and evicts the first one without it.
+     */
+    private void evictOne() {
+        while (true) {
+            hand = table.next(hand);
+            if (!table.isOccupied(hand)) {
+                continue;
+            }
+            if (referenced[hand]) {
+                referenced[hand] = false;
+            } else {
+                table.delete(hand);
+                recordEviction();
+                return;
+            }
+        }
+    }
+
+    private void move(int from, int to) {
+        written[to] = written[from];
+        referenced[to] = referenced[from];
+    }
+
+}
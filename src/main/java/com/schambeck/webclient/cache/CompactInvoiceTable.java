@@ -0,0 +1,236 @@
+package com.schambeck.webclient.cache;
+
+import com.schambeck.webclient.domain.Invoice;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Issued date and total of invoices by id, in parallel primitive arrays of an open addressing table keyed by the
+ * primitive id: {@code issued} as epoch day and {@code total} as unscaled long plus scale, 21 bytes per slot
+ * instead of well over 100 for an {@link Invoice} in a {@code HashMap}. Invoices whose values do not fit are kept
+ * as objects on the side. Entries are addressed by slot, so an owner can keep more per-invoice values in arrays of
+ * its own, which its {@link Mover} moves along whenever a removal shifts entries back. A table without a mover
+ * doubles when it gets full, one with a mover keeps its capacity and must not be filled beyond its maximum size.
+ * Not thread-safe.
+ */
+public final class CompactInvoiceTable {
+
+    /**
+     * Moves an owner's own per-slot values along with the entry moved from one slot to another.
+     */
+    @FunctionalInterface
+    public interface Mover {
+
+        void move(int from, int to);
+
+    }
+
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    private static final byte OVERSIZED = Byte.MIN_VALUE;
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Mover mover;
+    private final Map<Long, Invoice> oversized = new HashMap<>();
+    private int capacity;
+    private long[] ids;
+    private int[] issued;
+    private long[] totals;
+    private byte[] scales;
+    private int size;
+
+    private CompactInvoiceTable(int capacity, Mover mover) {
+        this.mover = mover;
+        allocate(capacity);
+    }
+
+    /**
+     * A table for up to {@code maximumSize} invoices, which never grows.
+     */
+    public static CompactInvoiceTable fixed(int maximumSize, Mover mover) {
+        return new CompactInvoiceTable(Math.max(2, (int) Math.ceil(maximumSize / LOAD_FACTOR)), mover);
+    }
+
+    /**
+     * A table that doubles when it gets full, so between 28 and 56 bytes per invoice.
+     */
+    public static CompactInvoiceTable growable() {
+        return new CompactInvoiceTable(INITIAL_CAPACITY, null);
+    }
+
+    private void allocate(int capacity) {
+        this.capacity = capacity;
+        this.ids = new long[capacity];
+        this.issued = new int[capacity];
+        this.totals = new long[capacity];
+        this.scales = new byte[capacity];
+        Arrays.fill(ids, EMPTY);
+    }
+
+    /**
+     * Whether the table can hold the id, {@code Long.MIN_VALUE} marks empty slots.
+     */
+    public static boolean isStorable(Long id) {
+        return id != null && id != EMPTY;
+    }
+
+    /**
+     * @return the slot of the id, or -1 when it is not in the table
+     */
+    public int find(long id) {
+        if (id == EMPTY) {
+            return -1;
+        }
+        for (int slot = home(id); ids[slot] != EMPTY; slot = next(slot)) {
+            if (ids[slot] == id) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Adds an id not in the table yet, its values are then set with {@link #set(int, Invoice)}.
+     *
+     * @return the slot of the id
+     */
+    public int insert(long id) {
+        if (mover == null && size + 1 > capacity * LOAD_FACTOR) {
+            grow();
+        }
+        int slot = insertionSlot(id);
+        ids[slot] = id;
+        scales[slot] = 0;
+        size++;
+        return slot;
+    }
+
+    public void set(int slot, Invoice invoice) {
+        LocalDate date = invoice.getIssued();
+        BigDecimal total = invoice.getTotal();
+        long epochDay = date == null ? 0 : date.toEpochDay();
+        boolean compact = (date == null || (epochDay > NO_DATE && epochDay <= Integer.MAX_VALUE))
+                && total != null && total.unscaledValue().bitLength() < Long.SIZE
+                && total.scale() > OVERSIZED && total.scale() <= Byte.MAX_VALUE;
+        if (!compact) {
+            scales[slot] = OVERSIZED;
+            oversized.put(ids[slot], invoice);
+            return;
+        }
+        if (scales[slot] == OVERSIZED) {
+            oversized.remove(ids[slot]);
+        }
+        issued[slot] = date == null ? NO_DATE : (int) epochDay;
+        totals[slot] = total.unscaledValue().longValueExact();
+        scales[slot] = (byte) total.scale();
+    }
+
+    public Invoice get(int slot) {
+        if (scales[slot] == OVERSIZED) {
+            return oversized.get(ids[slot]);
+        }
+        LocalDate date = issued[slot] == NO_DATE ? null : LocalDate.ofEpochDay(issued[slot]);
+        return new Invoice(ids[slot], date, BigDecimal.valueOf(totals[slot], scales[slot]));
+    }
+
+    /**
+     * Removes the entry and shifts the following entries of its probe sequence back,
+     * so lookups never stop at the hole left behind.
+     */
+    public void delete(int slot) {
+        if (scales[slot] == OVERSIZED) {
+            oversized.remove(ids[slot]);
+        }
+        size--;
+        int hole = slot;
+        for (int probe = next(slot); ids[probe] != EMPTY; probe = next(probe)) {
+            int home = home(ids[probe]);
+            boolean movable = hole <= probe ? (home <= hole || home > probe) : (home <= hole && home > probe);
+            if (movable) {
+                move(probe, hole);
+                hole = probe;
+            }
+        }
+        ids[hole] = EMPTY;
+    }
+
+    /**
+     * Passes the total of every invoice issued on the date, in no particular order, scanning the whole table.
+     */
+    public void forEachTotalIssuedOn(LocalDate date, Consumer<BigDecimal> action) {
+        long epochDay = date.toEpochDay();
+        for (int slot = 0; slot < capacity; slot++) {
+            if (ids[slot] != EMPTY && scales[slot] != OVERSIZED && issued[slot] == epochDay) {
+                action.accept(BigDecimal.valueOf(totals[slot], scales[slot]));
+            }
+        }
+        for (Invoice invoice : oversized.values()) {
+            if (date.equals(invoice.getIssued())) {
+                action.accept(invoice.getTotal());
+            }
+        }
+    }
+
+    public boolean isOccupied(int slot) {
+        return ids[slot] != EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int next(int slot) {
+        return slot + 1 == capacity ? 0 : slot + 1;
+    }
+
+    private int home(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return Math.floorMod(h ^ (h >>> 32), capacity);
+    }
+
+    private int insertionSlot(long id) {
+        int slot = home(id);
+        while (ids[slot] != EMPTY) {
+            slot = next(slot);
+        }
+        return slot;
+    }
+
+    private void move(int from, int to) {
+        ids[to] = ids[from];
+        issued[to] = issued[from];
+        totals[to] = totals[from];
+        scales[to] = scales[from];
+        if (mover != null) {
+            mover.move(from, to);
+        }
+    }
+
+    private void grow() {
+        long[] oldIds = ids;
+        int[] oldIssued = issued;
+        long[] oldTotals = totals;
+        byte[] oldScales = scales;
+        allocate(capacity * 2);
+        for (int old = 0; old < oldIds.length; old++) {
+            if (oldIds[old] != EMPTY) {
+                int slot = insertionSlot(oldIds[old]);
+                ids[slot] = oldIds[old];
+                issued[slot] = oldIssued[old];
+                totals[slot] = oldTotals[old];
+                scales[slot] = oldScales[old];
+            }
+        }
+    }
+
+}
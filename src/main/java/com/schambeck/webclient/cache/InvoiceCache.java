@@ -0,0 +1,15 @@
+package com.schambeck.webclient.cache;
+
+import com.schambeck.webclient.domain.Invoice;
+
+import java.util.Optional;
+
+public interface InvoiceCache {
+
+    Optional<Invoice> get(Long id);
+
+    void put(Invoice invoice);
+
+    void evict(Long id);
+
+}
@@ -0,0 +1,76 @@
+package com.schambeck.webclient.cache;
+
+import com.schambeck.webclient.domain.Invoice;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Least-recently-used invoice cache on top of an access-ordered {@link LinkedHashMap}.
+ */
+public class LruInvoiceCache extends AbstractInvoiceCache {
+
+    private final Map<Long, Entry> entries;
+    private final long timeToLiveNanos;
+    private final LongSupplier ticker;
+
+    public LruInvoiceCache(MeterRegistry registry, int maximumSize, Duration timeToLive) {
+        this(registry, maximumSize, timeToLive, System::nanoTime);
+    }
+
+    LruInvoiceCache(MeterRegistry registry, int maximumSize, Duration timeToLive, LongSupplier ticker) {
+        super(registry, CacheEviction.LRU);
+        this.timeToLiveNanos = timeToLive.toNanos();
+        this.ticker = ticker;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                boolean full = size() > maximumSize;
+                if (full) {
+                    recordEviction();
+                }
+                return full;
+            }
+        };
+    }
+
+    @Override
+    synchronized Invoice lookup(Long id) {
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            return null;
+        }
+        if (ticker.getAsLong() - entry.written >= timeToLiveNanos) {
+            entries.remove(id);
+            recordEviction();
+            return null;
+        }
+        return entry.invoice;
+    }
+
+    @Override
+    synchronized void store(Long id, Invoice invoice) {
+        entries.put(id, new Entry(invoice, ticker.getAsLong()));
+    }
+
+    @Override
+    synchronized void remove(Long id) {
+        entries.remove(id);
+    }
+
+    private static class Entry {
+
+        private final Invoice invoice;
+        private final long written;
+
+        private Entry(Invoice invoice, long written) {
+            this.invoice = invoice;
+            this.written = written;
+        }
+
+    }
+
+}
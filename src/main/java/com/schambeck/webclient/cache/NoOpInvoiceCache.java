@@ -0,0 +1,22 @@
+package com.schambeck.webclient.cache;
+
+import com.schambeck.webclient.domain.Invoice;
+
+import java.util.Optional;
+
+public class NoOpInvoiceCache implements InvoiceCache {
+
+    @Override
+    public Optional<Invoice> get(Long id) {
+        return Optional.empty();
+    }
+
+    @Override
+    public void put(Invoice invoice) {
+    }
+
+    @Override
+    public void evict(Long id) {
+    }
+
+}
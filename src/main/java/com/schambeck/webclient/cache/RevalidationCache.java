@@ -0,0 +1,94 @@
+package com.schambeck.webclient.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.Value;
+import org.springframework.http.HttpHeaders;
+
+import java.util.Optional;
+
+/**
+ * Keeps decoded upstream responses with their {@code ETag} and {@code Last-Modified} validators, so a request can be
+ * made conditional and a {@code 304 Not Modified} answered from the decoded value instead of a new body.
+ * Only responses carrying a validator are kept, listings only up to a maximum number of elements.
+ */
+public class RevalidationCache {
+
+    private final Cache<String, Entry<?>> cache;
+    private final int maxListingSize;
+
+    /**
+     * @param maximumSize    number of responses kept
+     * @param maxListingSize number of elements a kept listing may have, larger ones are passed through uncached
+     */
+    public RevalidationCache(int maximumSize, int maxListingSize) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .executor(Runnable::run)
+                .build();
+        this.maxListingSize = maxListingSize;
+    }
+
+    private RevalidationCache() {
+        this.cache = null;
+        this.maxListingSize = 0;
+    }
+
+    public static RevalidationCache disabled() {
+        return new RevalidationCache();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> Optional<Entry<T>> get(String key) {
+        return cache == null ? Optional.empty() : Optional.ofNullable((Entry<T>) cache.getIfPresent(key));
+    }
+
+    public <T> void put(String key, T value, HttpHeaders headers) {
+        if (cache == null || value == null) {
+            return;
+        }
+        if (hasValidators(headers)) {
+            cache.put(key, new Entry<>(value, headers.getETag(), headers.getLastModified()));
+        } else {
+            cache.invalidate(key);
+        }
+    }
+
+    public void evict(String key) {
+        if (cache != null) {
+            cache.invalidate(key);
+        }
+    }
+
+    public int getMaxListingSize() {
+        return maxListingSize;
+    }
+
+    public boolean hasValidators(HttpHeaders headers) {
+        return cache != null && (headers.getETag() != null || headers.getLastModified() >= 0);
+    }
+
+    @Value
+    public static class Entry<T> {
+
+        T value;
+
+        String eTag;
+
+        long lastModified;
+
+        /**
+         * Adds {@code If-None-Match} and {@code If-Modified-Since} for the validators of this entry.
+         */
+        public void addConditions(HttpHeaders headers) {
+            if (eTag != null) {
+                headers.setIfNoneMatch(eTag);
+            }
+            if (lastModified >= 0) {
+                headers.setIfModifiedSince(lastModified);
+            }
+        }
+
+    }
+
+}
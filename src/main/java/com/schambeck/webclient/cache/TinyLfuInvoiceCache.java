@@ -0,0 +1,58 @@
+package com.schambeck.webclient.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.schambeck.webclient.domain.Invoice;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+
+/**
+ * Invoice cache backed by Caffeine, whose W-TinyLFU policy keeps frequently read invoices
+ * in the cache even when a scan of rarely read ones goes through it.
+ */
+public class TinyLfuInvoiceCache extends AbstractInvoiceCache {
+
+    private final Cache<Long, Invoice> cache;
+
+    public TinyLfuInvoiceCache(MeterRegistry registry, int maximumSize, Duration timeToLive) {
+        this(registry, maximumSize, timeToLive, Ticker.systemTicker());
+    }
+
+    TinyLfuInvoiceCache(MeterRegistry registry, int maximumSize, Duration timeToLive, Ticker ticker) {
+        super(registry, CacheEviction.TINY_LFU);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .ticker(ticker)
+                .executor(Runnable::run)
+                .removalListener((Long id, Invoice invoice, RemovalCause cause) -> {
+                    if (cause.wasEvicted()) {
+                        recordEviction();
+                    }
+                })
+                .build();
+    }
+
+    @Override
+    Invoice lookup(Long id) {
+        return cache.getIfPresent(id);
+    }
+
+    @Override
+    void store(Long id, Invoice invoice) {
+        cache.put(id, invoice);
+    }
+
+    @Override
+    void remove(Long id) {
+        cache.invalidate(id);
+    }
+
+    void cleanUp() {
+        cache.cleanUp();
+    }
+
+}
@@ -0,0 +1,66 @@
+package com.schambeck.webclient.config;
+
+import com.schambeck.webclient.aggregate.InvoiceAggregator;
+import com.schambeck.webclient.cache.CacheEviction;
+import com.schambeck.webclient.cache.CompactInvoiceCache;
+import com.schambeck.webclient.cache.InvoiceCache;
+import com.schambeck.webclient.cache.LruInvoiceCache;
+import com.schambeck.webclient.cache.NoOpInvoiceCache;
+import com.schambeck.webclient.cache.RevalidationCache;
+import com.schambeck.webclient.cache.TinyLfuInvoiceCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+class CacheConfig {
+
+	@Value("${app.rest-app.cache.eviction:none}")
+	private CacheEviction eviction;
+
+	@Value("${app.rest-app.cache.maximum-size:10000}")
+	private int maximumSize;
+
+	@Value("${app.rest-app.cache.time-to-live:5m}")
+	private Duration timeToLive;
+
+	@Value("${app.rest-app.cache.revalidation.enabled:true}")
+	private boolean revalidationEnabled;
+
+	@Value("${app.rest-app.cache.revalidation.maximum-size:10000}")
+	private int revalidationMaximumSize;
+
+	@Value("${app.rest-app.cache.revalidation.max-listing-size:1000}")
+	private int revalidationMaxListingSize;
+
+	@Value("${app.rest-app.aggregates.max-age:5m}")
+	private Duration aggregatesMaxAge;
+
+	@Bean
+	InvoiceCache createInvoiceCache(MeterRegistry registry) {
+		switch (eviction) {
+			case LRU:
+				return new LruInvoiceCache(registry, maximumSize, timeToLive);
+			case TINY_LFU:
+				return new TinyLfuInvoiceCache(registry, maximumSize, timeToLive);
+			case COMPACT:
+				return new CompactInvoiceCache(registry, maximumSize, timeToLive);
+			default:
+				return new NoOpInvoiceCache();
+		}
+	}
+
+	@Bean
+	RevalidationCache createRevalidationCache() {
+		return revalidationEnabled ? new RevalidationCache(revalidationMaximumSize, revalidationMaxListingSize) : RevalidationCache.disabled();
+	}
+
+	@Bean
+	InvoiceAggregator createInvoiceAggregator() {
+		return new InvoiceAggregator(aggregatesMaxAge);
+	}
+
+}
@@ -0,0 +1,20 @@
+package com.schambeck.webclient.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Matches unless the RestTemplate client is switched off with {@code app.rest-app.rest-template.enabled=false},
+ * as the {@code fast} profile does, so its connection pool, services and endpoints are not created at all.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+@ConditionalOnProperty(name = "app.rest-app.rest-template.enabled", havingValue = "true", matchIfMissing = true)
+public @interface ConditionalOnRestTemplate {
+}
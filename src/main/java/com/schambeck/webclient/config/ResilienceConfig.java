@@ -0,0 +1,156 @@
+package com.schambeck.webclient.config;
+
+import com.schambeck.webclient.exception.ClientErrorException;
+import com.schambeck.webclient.exception.ServiceUnavailableException;
+import com.schambeck.webclient.limit.ConcurrencyLimit;
+import com.schambeck.webclient.limit.RetryBudget;
+import com.schambeck.webclient.reactive.Hedge;
+import com.schambeck.webclient.service.InvoiceResilience;
+import com.schambeck.webclient.service.InvoiceTimeouts;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+import java.util.Map;
+
+@Configuration
+class ResilienceConfig {
+
+	static final String CIRCUIT_BREAKER_NAME = "invoice-upstream";
+
+	@Value("${app.rest-app.circuit-breaker.enabled:true}")
+	private boolean circuitBreakerEnabled;
+
+	@Value("${app.rest-app.circuit-breaker.failure-rate-threshold:50}")
+	private float failureRateThreshold;
+
+	@Value("${app.rest-app.circuit-breaker.slow-call-rate-threshold:100}")
+	private float slowCallRateThreshold;
+
+	@Value("${app.rest-app.circuit-breaker.slow-call-duration-threshold:5s}")
+	private Duration slowCallDurationThreshold;
+
+	@Value("${app.rest-app.circuit-breaker.sliding-window-size:20}")
+	private int slidingWindowSize;
+
+	@Value("${app.rest-app.circuit-breaker.minimum-number-of-calls:10}")
+	private int minimumNumberOfCalls;
+
+	@Value("${app.rest-app.circuit-breaker.wait-duration-in-open-state:30s}")
+	private Duration waitDurationInOpenState;
+
+	@Value("${app.rest-app.circuit-breaker.permitted-calls-in-half-open-state:3}")
+	private int permittedCallsInHalfOpenState;
+
+	@Value("${app.rest-app.hedge.enabled:false}")
+	private boolean hedgeEnabled;
+
+	@Value("${app.rest-app.hedge.delay:100ms}")
+	private Duration hedgeDelay;
+
+	@Value("${app.rest-app.hedge.percentile:0}")
+	private double hedgePercentile;
+
+	@Value("${app.rest-app.hedge.budget:0.1}")
+	private double hedgeBudget;
+
+	@Value("${app.rest-app.concurrency-limit.enabled:true}")
+	private boolean concurrencyLimitEnabled;
+
+	@Value("${app.rest-app.concurrency-limit.initial-limit:20}")
+	private int initialLimit;
+
+	@Value("${app.rest-app.concurrency-limit.min-limit:1}")
+	private int minLimit;
+
+	@Value("${app.rest-app.concurrency-limit.max-limit:200}")
+	private int maxLimit;
+
+	@Value("${app.rest-app.concurrency-limit.latency-threshold:1s}")
+	private Duration latencyThreshold;
+
+	@Value("${app.rest-app.concurrency-limit.backoff-ratio:0.9}")
+	private double backoffRatio;
+
+	@Value("${app.rest-app.retry.budget.enabled:true}")
+	private boolean retryBudgetEnabled;
+
+	@Value("${app.rest-app.retry.budget.ratio:0.1}")
+	private double retryBudgetRatio;
+
+	@Value("${app.rest-app.retry.budget.max-tokens:10}")
+	private int retryBudgetMaxTokens;
+
+	@Bean
+	CircuitBreaker createCircuitBreaker(MeterRegistry meterRegistry) {
+		CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+				.failureRateThreshold(failureRateThreshold)
+				.slowCallRateThreshold(slowCallRateThreshold)
+				.slowCallDurationThreshold(slowCallDurationThreshold)
+				.slidingWindowSize(slidingWindowSize)
+				.minimumNumberOfCalls(minimumNumberOfCalls)
+				.waitDurationInOpenState(waitDurationInOpenState)
+				.permittedNumberOfCallsInHalfOpenState(permittedCallsInHalfOpenState)
+				.automaticTransitionFromOpenToHalfOpenEnabled(true)
+				.ignoreExceptions(ClientErrorException.class, ServiceUnavailableException.class)
+				.build();
+		CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(config);
+		TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+		CircuitBreaker circuitBreaker = registry.circuitBreaker(CIRCUIT_BREAKER_NAME);
+		circuitBreaker.getEventPublisher().onStateTransition(event -> Counter.builder("invoice.client.circuit.transitions")
+				.tag("name", CIRCUIT_BREAKER_NAME)
+				.tag("from", event.getStateTransition().getFromState().name().toLowerCase())
+				.tag("to", event.getStateTransition().getToState().name().toLowerCase())
+				.description("Number of circuit breaker state transitions")
+				.register(meterRegistry)
+				.increment());
+		if (!circuitBreakerEnabled) {
+			circuitBreaker.transitionToDisabledState();
+		}
+		return circuitBreaker;
+	}
+
+	@Bean
+	Hedge createFindByIdHedge(MeterRegistry meterRegistry) {
+		if (!hedgeEnabled) {
+			return Hedge.disabled();
+		}
+		return new Hedge(meterRegistry, "findById", hedgeDelay, hedgePercentile, hedgeBudget);
+	}
+
+	@Bean
+	ConcurrencyLimit createConcurrencyLimit() {
+		if (!concurrencyLimitEnabled) {
+			return ConcurrencyLimit.unlimited();
+		}
+		return new ConcurrencyLimit(true, initialLimit, minLimit, maxLimit, latencyThreshold, backoffRatio);
+	}
+
+	@Bean
+	RetryBudget createRetryBudget(MeterRegistry meterRegistry, Environment environment) {
+		if (!retryBudgetEnabled) {
+			return RetryBudget.unlimited();
+		}
+		Map<String, Double> ratios = Binder.get(environment)
+				.bind("app.rest-app.retry.budget.operations", Bindable.mapOf(String.class, Double.class))
+				.orElse(Map.of());
+		return new RetryBudget(meterRegistry, retryBudgetRatio, ratios, retryBudgetMaxTokens);
+	}
+
+	@Bean
+	InvoiceResilience createInvoiceResilience(CircuitBreaker circuitBreaker, Hedge findByIdHedge, InvoiceTimeouts timeouts,
+			ConcurrencyLimit concurrencyLimit, RetryBudget retryBudget) {
+		return new InvoiceResilience(circuitBreaker, findByIdHedge, timeouts, concurrencyLimit, retryBudget);
+	}
+
+}
@@ -1,21 +1,71 @@
 package com.schambeck.webclient.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 
+import java.time.Duration;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
 @Configuration
+@ConditionalOnRestTemplate
 class RestTemplateConfig {
 
+	static final String CONNECTION_POOL_NAME = "invoice-rest-template";
+
 	@Value("${app.rest-app.base-url}")
 	private String baseUrl;
 
+	@Value("${app.rest-app.rest-template.max-total:200}")
+	private int maxTotal;
+
+	@Value("${app.rest-app.rest-template.max-per-route:100}")
+	private int maxPerRoute;
+
+	@Value("${app.rest-app.rest-template.time-to-live:5m}")
+	private Duration timeToLive;
+
+	@Value("${app.rest-app.rest-template.max-idle-time:30s}")
+	private Duration maxIdleTime;
+
+	@Bean(destroyMethod = "close")
+	CloseableHttpClient createHttpClient(MeterRegistry registry) {
+		PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(timeToLive.toMillis(), MILLISECONDS);
+		connectionManager.setMaxTotal(maxTotal);
+		connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+		new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, CONNECTION_POOL_NAME).bindTo(registry);
+		return HttpClients.custom()
+				.setConnectionManager(connectionManager)
+				.evictExpiredConnections()
+				.evictIdleConnections(maxIdleTime.toMillis(), MILLISECONDS)
+				.build();
+	}
+
+	/**
+	 * Boot only auto-configures the {@link RestTemplateBuilder} on the servlet stack, on the reactive one
+	 * the template is built with the application's {@link ObjectMapper} directly.
+	 */
 	@Bean
-	RestTemplate createRestTemplate(RestTemplateBuilder builder) {
-		return builder.uriTemplateHandler(new DefaultUriBuilderFactory(baseUrl)).build();
+	RestTemplate createRestTemplate(ObjectProvider<RestTemplateBuilder> builders, ObjectMapper objectMapper, CloseableHttpClient httpClient) {
+		RestTemplateBuilder builder = builders.getIfAvailable(() -> new RestTemplateBuilder()
+				.messageConverters(new StringHttpMessageConverter(), new MappingJackson2HttpMessageConverter(objectMapper)));
+		return builder.uriTemplateHandler(new DefaultUriBuilderFactory(baseUrl))
+				.requestFactory(() -> new HttpComponentsClientHttpRequestFactory(httpClient))
+				.build();
 	}
 
 }
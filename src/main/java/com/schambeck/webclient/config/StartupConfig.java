@@ -0,0 +1,43 @@
+package com.schambeck.webclient.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.embedded.netty.NettyServerCustomizer;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.stream.Collectors;
+
+import static org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type.REACTIVE;
+
+@Configuration
+class StartupConfig {
+
+	/**
+	 * Boot prefers Tomcat over Netty when both are on the classpath, so the reactive stack
+	 * ({@code spring.main.web-application-type=reactive}, as in the {@code fast} profile) is pinned to Netty.
+	 */
+	@Bean
+	@ConditionalOnWebApplication(type = REACTIVE)
+	NettyReactiveWebServerFactory createNettyReactiveWebServerFactory(ObjectProvider<NettyServerCustomizer> customizers) {
+		NettyReactiveWebServerFactory factory = new NettyReactiveWebServerFactory();
+		factory.getServerCustomizers().addAll(customizers.orderedStream().collect(Collectors.toList()));
+		return factory;
+	}
+
+	/**
+	 * With {@code app.startup.exit-when-ready=true} the application shuts down as soon as it is ready,
+	 * the {@code cds} build profile runs it this way to record the classes loaded during startup.
+	 */
+	@Bean
+	@ConditionalOnProperty(name = "app.startup.exit-when-ready", havingValue = "true")
+	ApplicationListener<ApplicationReadyEvent> exitWhenReady() {
+		return event -> System.exit(SpringApplication.exit(event.getApplicationContext()));
+	}
+
+}
@@ -1,9 +1,20 @@
 package com.schambeck.webclient.config;
 
+import com.schambeck.webclient.reactive.Batching;
+import com.schambeck.webclient.reactive.Deadline;
+import com.schambeck.webclient.service.InvoiceTimeouts;
+import io.netty.channel.ChannelOption;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.Arrays;
 
 import static org.springframework.http.HttpHeaders.CONTENT_TYPE;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
@@ -11,14 +22,110 @@ import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 @Configuration
 class WebClientConfig {
 
+	static final String CONNECTION_PROVIDER_NAME = "invoice-client";
+
 	@Value("${app.rest-app.base-url}")
 	private String baseUrl;
 
+	@Value("${app.rest-app.pool.max-connections:500}")
+	private int maxConnections;
+
+	@Value("${app.rest-app.pool.pending-acquire-max-count:1000}")
+	private int pendingAcquireMaxCount;
+
+	@Value("${app.rest-app.pool.pending-acquire-timeout:45s}")
+	private Duration pendingAcquireTimeout;
+
+	@Value("${app.rest-app.pool.max-idle-time:30s}")
+	private Duration maxIdleTime;
+
+	@Value("${app.rest-app.pool.max-life-time:5m}")
+	private Duration maxLifeTime;
+
+	@Value("${app.rest-app.pool.evict-in-background:60s}")
+	private Duration evictInBackground;
+
+	@Value("${app.rest-app.http.protocols:http11}")
+	private HttpProtocol[] protocols;
+
+	@Value("${app.rest-app.http.h2-max-connections:1}")
+	private int h2MaxConnections;
+
+	@Value("${app.rest-app.http.compression:true}")
+	private boolean compression;
+
+	@Value("${app.rest-app.timeout.connect:2s}")
+	private Duration connectTimeout;
+
+	@Value("${app.rest-app.timeout.read.response:5s}")
+	private Duration readResponseTimeout;
+
+	@Value("${app.rest-app.timeout.read.deadline:30s}")
+	private Duration readDeadline;
+
+	@Value("${app.rest-app.timeout.write.response:10s}")
+	private Duration writeResponseTimeout;
+
+	@Value("${app.rest-app.timeout.write.deadline:15s}")
+	private Duration writeDeadline;
+
+	@Value("${app.rest-app.create-batch.enabled:false}")
+	private boolean createBatchEnabled;
+
+	@Value("${app.rest-app.create-batch.max-size:50}")
+	private int createBatchMaxSize;
+
+	@Value("${app.rest-app.create-batch.linger:10ms}")
+	private Duration createBatchLinger;
+
+	@Bean(destroyMethod = "dispose")
+	ConnectionProvider createConnectionProvider() {
+		return ConnectionProvider.builder(CONNECTION_PROVIDER_NAME)
+				.maxConnections(isHttp2Only() ? h2MaxConnections : maxConnections)
+				.pendingAcquireMaxCount(pendingAcquireMaxCount)
+				.pendingAcquireTimeout(pendingAcquireTimeout)
+				.maxIdleTime(maxIdleTime)
+				.maxLifeTime(maxLifeTime)
+				.evictInBackground(evictInBackground)
+				.metrics(true)
+				.build();
+	}
+
+	/**
+	 * Reactor Netty hands an HTTP/2 connection back to the pool only once its stream is open, concurrent
+	 * requests meanwhile would open connections of their own, so without HTTP/1.1 the pool stays small
+	 * and they wait for the connection to multiplex their streams on it instead.
+	 */
+	private boolean isHttp2Only() {
+		return !Arrays.asList(protocols).contains(HttpProtocol.HTTP11);
+	}
+
 	@Bean
-	WebClient createWebClient(WebClient.Builder builder) {
+	WebClient createWebClient(WebClient.Builder builder, ConnectionProvider connectionProvider) {
+		HttpClient httpClient = HttpClient.create(connectionProvider)
+				.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+				.protocol(protocols)
+				.compress(compression);
+		if (Arrays.asList(protocols).contains(HttpProtocol.H2)) {
+			httpClient = httpClient.secure();
+		}
 		return builder.baseUrl(baseUrl)
+				.clientConnector(new ReactorClientHttpConnector(httpClient))
 				.defaultHeader(CONTENT_TYPE, APPLICATION_JSON_VALUE)
 				.build();
 	}
 
+	@Bean
+	InvoiceTimeouts createInvoiceTimeouts() {
+		return new InvoiceTimeouts(new Deadline(readResponseTimeout, readDeadline), new Deadline(writeResponseTimeout, writeDeadline));
+	}
+
+	@Bean
+	Batching createInvoiceBatching() {
+		if (!createBatchEnabled) {
+			return Batching.disabled();
+		}
+		return new Batching(true, createBatchMaxSize, createBatchLinger);
+	}
+
 }
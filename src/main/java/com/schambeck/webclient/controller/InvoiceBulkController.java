@@ -0,0 +1,42 @@
+package com.schambeck.webclient.controller;
+
+import com.schambeck.webclient.domain.Invoice;
+import com.schambeck.webclient.domain.InvoiceResult;
+import com.schambeck.webclient.service.InvoiceService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+import static org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type.REACTIVE;
+import static org.springframework.http.HttpStatus.OK;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
+
+/**
+ * Creates the invoices of an NDJSON request body as they arrive, answering one result per line in order.
+ * Reactive stack only, where the body can be taken as a {@link Flux}, {@link InvoiceBulkServletController}
+ * serves the same endpoint on the servlet stack.
+ */
+@RestController
+@RequestMapping("/invoices")
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = REACTIVE)
+class InvoiceBulkController {
+
+    private final InvoiceService service;
+
+    @Value("${app.rest-app.bulk.concurrency:16}")
+    private int bulkConcurrency;
+
+    @ResponseStatus(OK)
+    @PostMapping(path = "/bulk", consumes = APPLICATION_NDJSON_VALUE, produces = APPLICATION_NDJSON_VALUE)
+    Flux<InvoiceResult> createAll(@RequestBody Flux<Invoice> invoices) {
+        return service.createAll(invoices, bulkConcurrency);
+    }
+
+}
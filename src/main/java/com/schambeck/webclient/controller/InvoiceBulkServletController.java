@@ -0,0 +1,65 @@
+package com.schambeck.webclient.controller;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.schambeck.webclient.domain.Invoice;
+import com.schambeck.webclient.domain.InvoiceResult;
+import com.schambeck.webclient.service.InvoiceService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+import static org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type.SERVLET;
+import static org.springframework.http.HttpStatus.OK;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
+
+/**
+ * {@link InvoiceBulkController} on the servlet stack, which cannot bind a request body to a {@link Flux}: the
+ * invoices are read one line at a time from the request stream on a worker thread, only as fast as the upstream
+ * creates them, so the body is never held in memory as a whole.
+ */
+@RestController
+@RequestMapping("/invoices")
+@ConditionalOnWebApplication(type = SERVLET)
+class InvoiceBulkServletController {
+
+    private final InvoiceService service;
+    private final ObjectReader invoiceReader;
+
+    @Value("${app.rest-app.bulk.concurrency:16}")
+    private int bulkConcurrency;
+
+    InvoiceBulkServletController(InvoiceService service, ObjectMapper objectMapper) {
+        this.service = service;
+        this.invoiceReader = objectMapper.readerFor(Invoice.class);
+    }
+
+    @ResponseStatus(OK)
+    @PostMapping(path = "/bulk", consumes = APPLICATION_NDJSON_VALUE, produces = APPLICATION_NDJSON_VALUE)
+    Flux<InvoiceResult> createAll(InputStream body) {
+        Flux<Invoice> invoices = Flux.using(() -> invoiceReader.<Invoice>readValues(body),
+                        iterator -> Flux.fromIterable(() -> iterator),
+                        InvoiceBulkServletController::close)
+                .subscribeOn(Schedulers.boundedElastic());
+        return service.createAll(invoices, bulkConcurrency);
+    }
+
+    private static void close(MappingIterator<Invoice> iterator) {
+        try {
+            iterator.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
@@ -1,16 +1,28 @@
 package com.schambeck.webclient.controller;
 
+import com.schambeck.webclient.aggregate.Granularity;
 import com.schambeck.webclient.domain.Invoice;
+import com.schambeck.webclient.domain.InvoiceAggregates;
+import com.schambeck.webclient.domain.InvoiceResult;
 import com.schambeck.webclient.service.InvoiceService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.Positive;
+import java.time.LocalDate;
+import java.util.List;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.springframework.format.annotation.DateTimeFormat.ISO.DATE;
 import static org.springframework.http.HttpStatus.*;
 import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
 
@@ -22,16 +34,65 @@ class InvoiceController {
 
     private final InvoiceService service;
 
+    @Value("${app.rest-app.page.size:0}")
+    private int pageSize;
+
+    @Value("${app.rest-app.page.prefetch:true}")
+    private boolean prefetch;
+
+    @Value("${app.rest-app.find-all.resume:false}")
+    private boolean resume;
+
+    @Value("${app.rest-app.batch.concurrency:16}")
+    private int batchConcurrency;
+
     @ResponseStatus(OK)
     @GetMapping(produces = APPLICATION_NDJSON_VALUE)
-    Flux<Invoice> findAll() {
-        return service.findAll();
+    Flux<Invoice> findAll(@RequestParam(required = false) @DateTimeFormat(iso = DATE) LocalDate from,
+                          @RequestParam(required = false) @DateTimeFormat(iso = DATE) LocalDate to,
+                          @RequestParam(required = false) Long afterId,
+                          @RequestParam(required = false) @Positive Integer limit) {
+        Flux<Invoice> invoices;
+        if (limit != null) {
+            invoices = service.findPage(afterId, limit);
+        } else if (pageSize > 0) {
+            invoices = service.findAllPaged(pageSize, prefetch);
+        } else if (resume) {
+            invoices = service.findAllResumable();
+        } else {
+            invoices = service.findAll();
+        }
+        return invoices
+                .filter(invoice -> from == null || !invoice.getIssued().isBefore(from))
+                .filter(invoice -> to == null || !invoice.getIssued().isAfter(to));
     }
 
     @ResponseStatus(OK)
+    @GetMapping("/aggregates")
+    Mono<InvoiceAggregates> aggregate(@RequestParam(defaultValue = "DAY") Granularity granularity,
+                                      @RequestParam(required = false) @DateTimeFormat(iso = DATE) LocalDate from,
+                                      @RequestParam(required = false) @DateTimeFormat(iso = DATE) LocalDate to) {
+        return service.aggregate(granularity, from, to);
+    }
+
     @GetMapping("/{id}")
-    Mono<Invoice> findById(@PathVariable @Positive Long id) {
-        return service.findById(id);
+    Mono<ResponseEntity<Invoice>> findById(@PathVariable @Positive Long id) {
+        return service.findById(id)
+                .map(invoice -> ResponseEntity.ok().eTag(eTag(invoice)).body(invoice));
+    }
+
+    /**
+     * Strong ETag derived from the invoice fields, a matching {@code If-None-Match} is answered with 304 by the framework.
+     */
+    static String eTag(Invoice invoice) {
+        String fields = invoice.getId() + "/" + invoice.getIssued() + "/" + (invoice.getTotal() == null ? null : invoice.getTotal().toPlainString());
+        return "\"" + DigestUtils.md5DigestAsHex(fields.getBytes(UTF_8)) + "\"";
+    }
+
+    @ResponseStatus(OK)
+    @PostMapping(path = "/batch", produces = APPLICATION_NDJSON_VALUE)
+    Flux<InvoiceResult> findAllById(@RequestBody @NotEmpty List<Long> ids, @RequestParam(defaultValue = "true") boolean ordered) {
+        return service.findAllById(Flux.fromIterable(ids), batchConcurrency, ordered);
     }
 
     @ResponseStatus(CREATED)
@@ -0,0 +1,39 @@
+package com.schambeck.webclient.controller;
+
+import com.schambeck.webclient.service.InvoiceService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+import static org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type.REACTIVE;
+import static org.springframework.http.HttpStatus.OK;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
+
+/**
+ * Relays the upstream NDJSON listing to the response without decoding it into invoices.
+ * Takes over unfiltered, unpaged {@code GET /invoices} requests only, the others still go through
+ * {@link InvoiceController}. On the reactive stack data buffers are written as they are, the servlet stack uses
+ * {@link InvoicePassthroughServletController} instead.
+ */
+@RestController
+@RequestMapping("/invoices")
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = REACTIVE)
+@ConditionalOnProperty(name = "app.rest-app.passthrough.enabled", havingValue = "true")
+class InvoicePassthroughController {
+
+    private final InvoiceService service;
+
+    @ResponseStatus(OK)
+    @GetMapping(produces = APPLICATION_NDJSON_VALUE, params = {"!from", "!to", "!afterId", "!limit"})
+    Flux<DataBuffer> findAll() {
+        return service.findAllRaw();
+    }
+
+}
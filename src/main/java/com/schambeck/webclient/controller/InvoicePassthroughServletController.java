@@ -0,0 +1,64 @@
+package com.schambeck.webclient.controller;
+
+import com.schambeck.webclient.service.InvoiceService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.scheduler.Schedulers;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+import static org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type.SERVLET;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
+
+/**
+ * {@link InvoicePassthroughController} on the servlet stack, which has no writer for data buffers: each buffer is
+ * copied to the response stream and flushed on a worker thread as it arrives, then released. Buffers still queued
+ * when the client goes away are released too.
+ */
+@RestController
+@RequestMapping("/invoices")
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = SERVLET)
+@ConditionalOnProperty(name = "app.rest-app.passthrough.enabled", havingValue = "true")
+class InvoicePassthroughServletController {
+
+    private final InvoiceService service;
+
+    /**
+     * The content type is only set once the upstream answered, so a failure before that is still answered as JSON
+     * by the exception handlers.
+     */
+    @GetMapping(produces = APPLICATION_NDJSON_VALUE, params = {"!from", "!to", "!afterId", "!limit"})
+    StreamingResponseBody findAll(HttpServletResponse response) {
+        return out -> service.findAllRaw()
+                .publishOn(Schedulers.boundedElastic(), 1)
+                .doOnNext(buffer -> {
+                    response.setContentType(APPLICATION_NDJSON_VALUE);
+                    write(buffer, out);
+                })
+                .doOnComplete(() -> response.setContentType(APPLICATION_NDJSON_VALUE))
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                .blockLast();
+    }
+
+    private static void write(DataBuffer buffer, OutputStream out) {
+        try (InputStream in = buffer.asInputStream(true)) {
+            in.transferTo(out);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
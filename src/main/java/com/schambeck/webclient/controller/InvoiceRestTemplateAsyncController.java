@@ -0,0 +1,67 @@
+package com.schambeck.webclient.controller;
+
+import com.schambeck.webclient.config.ConditionalOnRestTemplate;
+import com.schambeck.webclient.domain.Invoice;
+import com.schambeck.webclient.service.InvoiceRestTemplateAsyncService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
+
+/**
+ * Async variant of {@link InvoiceRestTemplateController}: the servlet thread is released while the
+ * upstream call runs on the bulkhead executor of {@link InvoiceRestTemplateAsyncService}.
+ */
+@RestController
+@RequestMapping("/invoices-rest-template")
+@RequiredArgsConstructor
+@ConditionalOnRestTemplate
+@ConditionalOnProperty(name = "app.rest-app.rest-template.async.enabled", havingValue = "true")
+class InvoiceRestTemplateAsyncController {
+
+    private final InvoiceRestTemplateAsyncService service;
+
+    @GetMapping
+    CompletableFuture<List<Invoice>> findAll(@RequestParam(required = false) Long afterId, @RequestParam(required = false) Integer limit) {
+        return limit == null ? service.findAll() : service.findPage(afterId, limit);
+    }
+
+    /**
+     * Writes the listing as NDJSON while it is parsed, memory stays flat whatever the number of invoices.
+     */
+    @GetMapping(produces = APPLICATION_NDJSON_VALUE)
+    Flux<Invoice> findAllStreaming(@RequestParam(required = false) Long afterId, @RequestParam(required = false) Integer limit) {
+        if (limit != null) {
+            return Mono.defer(() -> Mono.fromFuture(service.findPage(afterId, limit))).flatMapIterable(Function.identity());
+        }
+        return service.streamAll();
+    }
+
+    @GetMapping("/{id}")
+    CompletableFuture<Invoice> findById(@PathVariable("id") Long id) {
+        return service.findById(id);
+    }
+
+    @PostMapping
+    CompletableFuture<Invoice> create(@RequestBody Invoice invoice) {
+        return service.create(invoice);
+    }
+
+    @PutMapping("/{id}")
+    CompletableFuture<Invoice> update(@PathVariable("id") Long id, @RequestBody Invoice invoice) {
+        return service.update(id, invoice);
+    }
+
+    @DeleteMapping("/{id}")
+    CompletableFuture<Void> delete(@PathVariable Long id) {
+        return service.delete(id);
+    }
+
+}
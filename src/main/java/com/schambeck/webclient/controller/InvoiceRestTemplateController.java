@@ -1,22 +1,41 @@
 package com.schambeck.webclient.controller;
 
+import com.schambeck.webclient.config.ConditionalOnRestTemplate;
 import com.schambeck.webclient.domain.Invoice;
 import com.schambeck.webclient.service.InvoiceRestTemplateService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
 import java.util.List;
 
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
+import static reactor.core.scheduler.Schedulers.boundedElastic;
+
 @RestController
 @RequestMapping("/invoices-rest-template")
 @RequiredArgsConstructor
+@ConditionalOnRestTemplate
+@ConditionalOnProperty(name = "app.rest-app.rest-template.async.enabled", havingValue = "false", matchIfMissing = true)
 class InvoiceRestTemplateController {
 
     private final InvoiceRestTemplateService service;
 
     @GetMapping
-    List<Invoice> findAll() {
-        return service.findAll();
+    List<Invoice> findAll(@RequestParam(required = false) Long afterId, @RequestParam(required = false) Integer limit) {
+        return limit == null ? service.findAll() : service.findPage(afterId, limit);
+    }
+
+    /**
+     * Writes the listing as NDJSON while it is parsed, memory stays flat whatever the number of invoices.
+     */
+    @GetMapping(produces = APPLICATION_NDJSON_VALUE)
+    Flux<Invoice> findAllStreaming(@RequestParam(required = false) Long afterId, @RequestParam(required = false) Integer limit) {
+        if (limit != null) {
+            return Flux.fromIterable(service.findPage(afterId, limit));
+        }
+        return Flux.fromStream(service::streamAll).subscribeOn(boundedElastic());
     }
 
     @GetMapping("/{id}")
@@ -0,0 +1,24 @@
+package com.schambeck.webclient.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InvoiceAggregate {
+
+    private String period;
+
+    private long count;
+
+    private BigDecimal total;
+
+    private BigDecimal min;
+
+    private BigDecimal max;
+
+}
@@ -0,0 +1,18 @@
+package com.schambeck.webclient.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InvoiceAggregates {
+
+    private InvoiceAggregate range;
+
+    private List<InvoiceAggregate> periods;
+
+}
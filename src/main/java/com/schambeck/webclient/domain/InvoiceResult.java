@@ -0,0 +1,32 @@
+package com.schambeck.webclient.domain;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import static com.fasterxml.jackson.annotation.JsonInclude.Include.NON_NULL;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(NON_NULL)
+public class InvoiceResult {
+
+    private Long id;
+
+    private int status;
+
+    private Invoice invoice;
+
+    private String error;
+
+    public static InvoiceResult success(Long id, int status, Invoice invoice) {
+        return new InvoiceResult(id, status, invoice, null);
+    }
+
+    public static InvoiceResult failure(Long id, int status, String error) {
+        return new InvoiceResult(id, status, null, error);
+    }
+
+}
@@ -20,6 +20,12 @@ class ControllerAdvisor {
         return ResponseEntity.status(exception.getStatusCode()).body(responseBody);
     }
 
+    @ExceptionHandler(GatewayTimeoutException.class)
+    public ResponseEntity<ErrorData> handleGatewayTimeoutException(GatewayTimeoutException exception) {
+        ErrorData responseBody = new ErrorData(exception.getMessage());
+        return ResponseEntity.status(exception.getStatusCode()).body(responseBody);
+    }
+
     @ExceptionHandler(WebClientResponseException.class)
     public ResponseEntity<String> handleWebClientResponseException(WebClientResponseException ex) {
         return ResponseEntity.status(ex.getRawStatusCode()).body(ex.getResponseBodyAsString());
@@ -0,0 +1,15 @@
+package com.schambeck.webclient.exception;
+
+public class GatewayTimeoutException extends RuntimeException {
+
+    private final int statusCode;
+
+    public GatewayTimeoutException(String message, int statusCode) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
@@ -0,0 +1,178 @@
+package com.schambeck.webclient.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.schambeck.webclient.domain.Invoice;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+
+/**
+ * Reads and writes {@link Invoice} field by field on the streaming API instead of through the reflective bean
+ * (de)serializers. The JSON is the same: {@code {"id":1,"issued":"2021-02-01","total":1000}}. As a bean, the module
+ * is registered on the application's ObjectMapper, and so on the WebFlux codecs, the MVC converters and the
+ * RestTemplate.
+ */
+@Component
+public class InvoiceModule extends SimpleModule {
+
+    private static final String ID = "id";
+    private static final String ISSUED = "issued";
+    private static final String TOTAL = "total";
+    private static final int DATE_LENGTH = 10;
+
+    public InvoiceModule() {
+        super(InvoiceModule.class.getSimpleName());
+        addSerializer(Invoice.class, new InvoiceSerializer());
+        addDeserializer(Invoice.class, new InvoiceDeserializer());
+    }
+
+    static class InvoiceSerializer extends StdSerializer<Invoice> {
+
+        InvoiceSerializer() {
+            super(Invoice.class);
+        }
+
+        @Override
+        public void serialize(Invoice invoice, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject(invoice);
+            generator.writeFieldName(ID);
+            if (invoice.getId() == null) {
+                generator.writeNull();
+            } else {
+                generator.writeNumber(invoice.getId());
+            }
+            generator.writeFieldName(ISSUED);
+            writeDate(invoice.getIssued(), generator);
+            generator.writeFieldName(TOTAL);
+            if (invoice.getTotal() == null) {
+                generator.writeNull();
+            } else {
+                generator.writeNumber(invoice.getTotal());
+            }
+            generator.writeEndObject();
+        }
+
+        /**
+         * Writes four digit years as {@code yyyy-MM-dd} from a char array, without formatting a String first.
+         */
+        private static void writeDate(LocalDate date, JsonGenerator generator) throws IOException {
+            if (date == null) {
+                generator.writeNull();
+                return;
+            }
+            int year = date.getYear();
+            if (year < 1000 || year > 9999) {
+                generator.writeString(date.toString());
+                return;
+            }
+            char[] chars = new char[DATE_LENGTH];
+            writeDigits(chars, 0, year, 4);
+            chars[4] = '-';
+            writeDigits(chars, 5, date.getMonthValue(), 2);
+            chars[7] = '-';
+            writeDigits(chars, 8, date.getDayOfMonth(), 2);
+            generator.writeString(chars, 0, DATE_LENGTH);
+        }
+
+        private static void writeDigits(char[] chars, int offset, int value, int digits) {
+            for (int i = offset + digits - 1; i >= offset; i--) {
+                chars[i] = (char) ('0' + value % 10);
+                value /= 10;
+            }
+        }
+
+    }
+
+    static class InvoiceDeserializer extends StdDeserializer<Invoice> {
+
+        InvoiceDeserializer() {
+            super(Invoice.class);
+        }
+
+        @Override
+        public Invoice deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            JsonToken token = parser.currentToken();
+            if (token == JsonToken.START_OBJECT) {
+                token = parser.nextToken();
+            } else if (token != JsonToken.FIELD_NAME) {
+                return (Invoice) context.handleUnexpectedToken(Invoice.class, parser);
+            }
+            Invoice invoice = new Invoice();
+            for (; token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (ID.equals(field)) {
+                    invoice.setId(value == JsonToken.VALUE_NUMBER_INT ? parser.getLongValue() : read(parser, context, Long.class));
+                } else if (ISSUED.equals(field)) {
+                    invoice.setIssued(value == JsonToken.VALUE_STRING ? parseDate(parser, context) : read(parser, context, LocalDate.class));
+                } else if (TOTAL.equals(field)) {
+                    invoice.setTotal(value == JsonToken.VALUE_NUMBER_INT || value == JsonToken.VALUE_NUMBER_FLOAT
+                            ? parser.getDecimalValue() : read(parser, context, BigDecimal.class));
+                } else {
+                    handleUnknownProperty(parser, context, invoice, field);
+                }
+            }
+            return invoice;
+        }
+
+        private static <T> T read(JsonParser parser, DeserializationContext context, Class<T> type) throws IOException {
+            return parser.currentToken() == JsonToken.VALUE_NULL ? null : context.readValue(parser, type);
+        }
+
+        /**
+         * Parses {@code yyyy-MM-dd} straight from the parser's character buffer, anything else goes through
+         * {@link LocalDate#parse}.
+         */
+        private LocalDate parseDate(JsonParser parser, DeserializationContext context) throws IOException {
+            if (parser.getTextLength() == DATE_LENGTH) {
+                char[] chars = parser.getTextCharacters();
+                int offset = parser.getTextOffset();
+                if (chars[offset + 4] == '-' && chars[offset + 7] == '-') {
+                    int year = readDigits(chars, offset, 4);
+                    int month = readDigits(chars, offset + 5, 2);
+                    int day = readDigits(chars, offset + 8, 2);
+                    if (year >= 0 && month >= 0 && day >= 0) {
+                        try {
+                            return LocalDate.of(year, month, day);
+                        } catch (DateTimeException e) {
+                            return (LocalDate) context.handleWeirdStringValue(LocalDate.class, parser.getText(), e.getMessage());
+                        }
+                    }
+                }
+            }
+            String text = parser.getText().trim();
+            if (text.isEmpty()) {
+                return null;
+            }
+            try {
+                return LocalDate.parse(text);
+            } catch (RuntimeException e) {
+                return (LocalDate) context.handleWeirdStringValue(LocalDate.class, text, e.getMessage());
+            }
+        }
+
+        private static int readDigits(char[] chars, int offset, int digits) {
+            int value = 0;
+            for (int i = offset; i < offset + digits; i++) {
+                char c = chars[i];
+                if (c < '0' || c > '9') {
+                    return -1;
+                }
+                value = value * 10 + (c - '0');
+            }
+            return value;
+        }
+
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.schambeck.webclient.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads the elements of a top-level JSON array one at a time with the streaming parser, so only the
+ * element being read is held in memory whatever the size of the array.
+ */
+public final class JsonArrayStreams {
+
+    private JsonArrayStreams() {
+    }
+
+    /**
+     * Lazy stream of the array elements, closing the stream closes the parser. Parse errors surface
+     * as {@link UncheckedIOException} while the stream is consumed.
+     */
+    public static <T> Stream<T> stream(JsonParser parser, ObjectReader reader) throws IOException {
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            parser.close();
+            throw new IOException("Expected a JSON array but found " + parser.currentToken());
+        }
+        Spliterator<T> elements = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE, Spliterator.ORDERED) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    JsonToken token = parser.nextToken();
+                    if (token == JsonToken.END_ARRAY) {
+                        return false;
+                    }
+                    if (token == null) {
+                        throw new IOException("Unexpected end of input within the JSON array");
+                    }
+                    action.accept(reader.readValue(parser));
+                    return true;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+        return StreamSupport.stream(elements, false).onClose(() -> {
+            try {
+                parser.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+}
@@ -21,4 +21,12 @@ public class ObjectMapperUtil {
         }
     }
 
+    public <T> byte[] asJsonBytes(T obj) {
+        try {
+            return objectMapper.writeValueAsBytes(obj);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
 }
@@ -0,0 +1,160 @@
+package com.schambeck.webclient.limit;
+
+import com.schambeck.webclient.exception.ServerErrorException;
+import com.schambeck.webclient.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+
+/**
+ * Limits the number of concurrent upstream calls with an AIMD limit: every call that completes in time while the
+ * limit is in use raises it by one, every server error, timeout or call slower than the latency threshold multiplies
+ * it by the backoff ratio. Calls over the limit are rejected at once with a 503 instead of queueing up. A streamed
+ * listing counts until its first element, however long the rest of the stream then takes.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final ConcurrencyLimit settings;
+    private final Counter rejected;
+    private double limit;
+    private int inFlight;
+
+    public AdaptiveConcurrencyLimiter(MeterRegistry registry, String client, ConcurrencyLimit settings) {
+        this.settings = settings;
+        this.limit = settings.getInitialLimit();
+        if (!settings.isEnabled()) {
+            this.rejected = null;
+            return;
+        }
+        Gauge.builder("invoice.client.concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .tag("client", client)
+                .description("Current adaptive limit of concurrent upstream calls")
+                .register(registry);
+        Gauge.builder("invoice.client.concurrency.inflight", this, AdaptiveConcurrencyLimiter::getInFlight)
+                .tag("client", client)
+                .description("Number of upstream calls in flight")
+                .register(registry);
+        this.rejected = Counter.builder("invoice.client.concurrency.rejected")
+                .tag("client", client)
+                .description("Number of calls rejected because the concurrency limit was reached")
+                .register(registry);
+    }
+
+    public <T> Mono<T> limit(Mono<T> call) {
+        if (!settings.isEnabled()) {
+            return call;
+        }
+        return Mono.defer(() -> {
+            Permit permit = acquire();
+            return call.doOnSuccess(value -> permit.release(null))
+                    .doOnError(permit::release)
+                    .doOnCancel(permit::ignore);
+        });
+    }
+
+    public <T> Flux<T> limit(Flux<T> call) {
+        if (!settings.isEnabled()) {
+            return call;
+        }
+        return Flux.defer(() -> {
+            Permit permit = acquire();
+            return call.doOnNext(value -> permit.release(null))
+                    .doOnComplete(() -> permit.release(null))
+                    .doOnError(permit::release)
+                    .doOnCancel(permit::ignore);
+        });
+    }
+
+    public <T> T limit(Supplier<T> call) {
+        if (!settings.isEnabled()) {
+            return call.get();
+        }
+        Permit permit = acquire();
+        T result;
+        try {
+            result = call.get();
+        } catch (RuntimeException e) {
+            permit.release(e);
+            throw e;
+        }
+        permit.release(null);
+        return result;
+    }
+
+    private Permit acquire() {
+        synchronized (this) {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                return new Permit(System.nanoTime());
+            }
+        }
+        rejected.increment();
+        throw new ServiceUnavailableException("Too many concurrent requests to the External Service", SERVICE_UNAVAILABLE.value());
+    }
+
+    private synchronized void release(long start, Throwable throwable) {
+        boolean overloaded = isOverload(throwable) || System.nanoTime() - start > settings.getLatencyThreshold().toNanos();
+        if (overloaded) {
+            limit = Math.max(settings.getMinLimit(), limit * settings.getBackoffRatio());
+        } else if (throwable == null && inFlight * 2 >= limit) {
+            limit = Math.min(settings.getMaxLimit(), limit + 1);
+        }
+        inFlight--;
+    }
+
+    private synchronized void ignore() {
+        inFlight--;
+    }
+
+    /**
+     * A call's slot, given back once: a value followed by a cancel, as {@code next()} does, must not release it twice.
+     */
+    private final class Permit {
+
+        private final long start;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(long start) {
+            this.start = start;
+        }
+
+        void release(Throwable throwable) {
+            if (released.compareAndSet(false, true)) {
+                AdaptiveConcurrencyLimiter.this.release(start, throwable);
+            }
+        }
+
+        void ignore() {
+            if (released.compareAndSet(false, true)) {
+                AdaptiveConcurrencyLimiter.this.ignore();
+            }
+        }
+
+    }
+
+    private static boolean isOverload(Throwable throwable) {
+        return throwable instanceof ServerErrorException
+                || throwable instanceof HttpServerErrorException
+                || throwable instanceof ResourceAccessException
+                || throwable instanceof TimeoutException;
+    }
+
+    synchronized double getLimit() {
+        return limit;
+    }
+
+    synchronized int getInFlight() {
+        return inFlight;
+    }
+
+}
@@ -0,0 +1,35 @@
+package com.schambeck.webclient.limit;
+
+import lombok.Value;
+
+import java.time.Duration;
+
+/**
+ * Settings of an {@link AdaptiveConcurrencyLimiter}.
+ */
+@Value
+public class ConcurrencyLimit {
+
+    boolean enabled;
+
+    int initialLimit;
+
+    int minLimit;
+
+    int maxLimit;
+
+    /**
+     * Calls slower than this count as a sign of overload, like server errors and timeouts.
+     */
+    Duration latencyThreshold;
+
+    /**
+     * Factor the limit is multiplied by on overload.
+     */
+    double backoffRatio;
+
+    public static ConcurrencyLimit unlimited() {
+        return new ConcurrencyLimit(false, 0, 0, 0, Duration.ZERO, 1);
+    }
+
+}
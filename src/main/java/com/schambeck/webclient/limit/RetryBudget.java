@@ -0,0 +1,100 @@
+package com.schambeck.webclient.limit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Token bucket per operation shared by every call of both clients: each call deposits a fraction of a token, each
+ * retry takes a whole one, so retries are limited to that fraction of recent calls, on top of the attempts allowed
+ * per call. A bucket starts full, so a few retries are allowed after a quiet period.
+ */
+public class RetryBudget {
+
+    private static final long TOKEN = 1000;
+
+    private final MeterRegistry registry;
+    private final double defaultRatio;
+    private final Map<String, Double> ratios;
+    private final long maxTokens;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    private RetryBudget() {
+        this.registry = null;
+        this.defaultRatio = 0;
+        this.ratios = Map.of();
+        this.maxTokens = 0;
+    }
+
+    /**
+     * @param defaultRatio fraction of calls that may be retried, e.g. 0.1
+     * @param ratios       fraction per operation, overriding the default one
+     * @param maxTokens    number of retries that can be saved up
+     */
+    public RetryBudget(MeterRegistry registry, double defaultRatio, Map<String, Double> ratios, int maxTokens) {
+        this.registry = registry;
+        this.defaultRatio = defaultRatio;
+        this.ratios = Map.copyOf(ratios);
+        this.maxTokens = maxTokens * TOKEN;
+    }
+
+    public static RetryBudget unlimited() {
+        return new RetryBudget();
+    }
+
+    public void deposit(String operation) {
+        if (registry != null) {
+            bucket(operation).deposit();
+        }
+    }
+
+    public boolean tryRetry(String operation) {
+        return registry == null || bucket(operation).withdraw();
+    }
+
+    private Bucket bucket(String operation) {
+        return buckets.computeIfAbsent(operation, Bucket::new);
+    }
+
+    private class Bucket {
+
+        private final long deposit;
+        private final Counter throttled;
+        private long tokens;
+
+        Bucket(String operation) {
+            this.deposit = Math.round(ratios.getOrDefault(operation, defaultRatio) * TOKEN);
+            this.tokens = maxTokens;
+            Gauge.builder("invoice.client.retry.budget", this, Bucket::available)
+                    .tag("operation", operation)
+                    .description("Number of retries currently allowed by the retry budget")
+                    .register(registry);
+            this.throttled = Counter.builder("invoice.client.retries.throttled")
+                    .tag("operation", operation)
+                    .description("Number of retries not attempted because the retry budget was exhausted")
+                    .register(registry);
+        }
+
+        synchronized void deposit() {
+            tokens = Math.min(maxTokens, tokens + deposit);
+        }
+
+        synchronized boolean withdraw() {
+            if (tokens < TOKEN) {
+                throttled.increment();
+                return false;
+            }
+            tokens -= TOKEN;
+            return true;
+        }
+
+        synchronized double available() {
+            return (double) (tokens / TOKEN);
+        }
+
+    }
+
+}
@@ -0,0 +1,150 @@
+package com.schambeck.webclient.metrics;
+
+import com.schambeck.webclient.exception.ClientErrorException;
+import com.schambeck.webclient.exception.ServerErrorException;
+import com.schambeck.webclient.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Supplier;
+
+/**
+ * Upstream call metrics of an invoice client: a timer per operation and outcome,
+ * and counters of error responses, retries and exhausted retries.
+ */
+public class InvoiceClientMetrics {
+
+    static final String SUCCESS = "success";
+    static final String CLIENT_ERROR = "client_error";
+    static final String SERVER_ERROR = "server_error";
+    static final String UNAVAILABLE = "unavailable";
+    static final String ERROR = "error";
+    static final String CANCELLED = "cancelled";
+
+    private final MeterRegistry registry;
+    private final String client;
+
+    public InvoiceClientMetrics(MeterRegistry registry, String client) {
+        this.registry = registry;
+        this.client = client;
+    }
+
+    public <T> Mono<T> timed(String operation, Mono<T> mono) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(registry);
+            return mono.doOnSuccess(value -> sample.stop(timer(operation, SUCCESS)))
+                    .doOnError(throwable -> sample.stop(timer(operation, outcome(throwable))))
+                    .doOnCancel(() -> sample.stop(timer(operation, CANCELLED)));
+        });
+    }
+
+    public <T> Flux<T> timed(String operation, Flux<T> flux) {
+        return Flux.defer(() -> {
+            Timer.Sample sample = Timer.start(registry);
+            return flux.doOnComplete(() -> sample.stop(timer(operation, SUCCESS)))
+                    .doOnError(throwable -> sample.stop(timer(operation, outcome(throwable))))
+                    .doOnCancel(() -> sample.stop(timer(operation, CANCELLED)));
+        });
+    }
+
+    public <T> T record(String operation, Supplier<T> call) {
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = SUCCESS;
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            outcome = outcome(e);
+            if (e instanceof HttpClientErrorException) {
+                clientError(operation);
+            } else if (e instanceof HttpServerErrorException) {
+                serverError(operation);
+            }
+            throw e;
+        } finally {
+            sample.stop(timer(operation, outcome));
+        }
+    }
+
+    public void clientError(String operation) {
+        errors(operation, "client").increment();
+    }
+
+    public void serverError(String operation) {
+        errors(operation, "server").increment();
+    }
+
+    public void retry(String operation) {
+        Counter.builder("invoice.client.retries")
+                .tag("client", client)
+                .tag("operation", operation)
+                .description("Number of upstream retry attempts")
+                .register(registry)
+                .increment();
+    }
+
+    public void retriesExhausted(String operation) {
+        Counter.builder("invoice.client.retries.exhausted")
+                .tag("client", client)
+                .tag("operation", operation)
+                .description("Number of upstream calls failing after max retries")
+                .register(registry)
+                .increment();
+    }
+
+    public void revalidated(String operation, boolean notModified) {
+        Counter.builder("invoice.client.revalidations")
+                .tag("client", client)
+                .tag("operation", operation)
+                .tag("result", notModified ? "not_modified" : "modified")
+                .description("Number of conditional upstream requests, by whether the cached response was still valid")
+                .register(registry)
+                .increment();
+    }
+
+    private Counter errors(String operation, String type) {
+        return Counter.builder("invoice.client.errors")
+                .tag("client", client)
+                .tag("operation", operation)
+                .tag("type", type)
+                .description("Number of upstream error responses")
+                .register(registry);
+    }
+
+    private Timer timer(String operation, String outcome) {
+        return Timer.builder("invoice.client.requests")
+                .tag("client", client)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .description("Latency of upstream invoice calls")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    static String outcome(Throwable throwable) {
+        if (throwable instanceof ClientErrorException || throwable instanceof HttpClientErrorException) {
+            return CLIENT_ERROR;
+        }
+        if (throwable instanceof ServerErrorException || throwable instanceof HttpServerErrorException) {
+            return SERVER_ERROR;
+        }
+        if (throwable instanceof ServiceUnavailableException) {
+            return UNAVAILABLE;
+        }
+        if (throwable instanceof WebClientResponseException) {
+            return ((WebClientResponseException) throwable).getStatusCode().is4xxClientError() ? CLIENT_ERROR : SERVER_ERROR;
+        }
+        if (throwable instanceof RestClientResponseException) {
+            return ((RestClientResponseException) throwable).getRawStatusCode() < 500 ? CLIENT_ERROR : SERVER_ERROR;
+        }
+        return ERROR;
+    }
+
+}
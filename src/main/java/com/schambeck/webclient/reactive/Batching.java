@@ -0,0 +1,29 @@
+package com.schambeck.webclient.reactive;
+
+import lombok.Value;
+
+import java.time.Duration;
+
+/**
+ * Settings of a {@link MicroBatcher}.
+ */
+@Value
+public class Batching {
+
+    boolean enabled;
+
+    /**
+     * A batch is sent as soon as it holds this many items.
+     */
+    int maxSize;
+
+    /**
+     * A batch is sent at the latest this long after its first item was submitted.
+     */
+    Duration linger;
+
+    public static Batching disabled() {
+        return new Batching(false, 1, Duration.ZERO);
+    }
+
+}
@@ -0,0 +1,105 @@
+package com.schambeck.webclient.reactive;
+
+import com.schambeck.webclient.exception.GatewayTimeoutException;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClientRequest;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.springframework.http.HttpStatus.GATEWAY_TIMEOUT;
+
+/**
+ * Timeouts of an upstream operation: a response timeout per attempt and an overall deadline
+ * shared by all attempts, retries and backoff included. The deadline travels in the Reactor
+ * context, so {@link #propagation()} can send the remaining budget upstream and cap the
+ * response timeout of a late attempt to it.
+ */
+public class Deadline {
+
+    public static final String HEADER = "X-Request-Timeout";
+
+    private static final String EXPIRES_AT = Deadline.class.getName() + ".expiresAt";
+    private static final String RESPONSE_TIMEOUT = Deadline.class.getName() + ".responseTimeout";
+
+    private final Duration responseTimeout;
+    private final Duration budget;
+
+    /**
+     * @param responseTimeout maximum time between reads of a single attempt's response
+     * @param budget          overall deadline of the operation, retries included
+     */
+    public Deadline(Duration responseTimeout, Duration budget) {
+        this.responseTimeout = responseTimeout;
+        this.budget = budget;
+    }
+
+    public static Deadline none() {
+        return new Deadline(null, null);
+    }
+
+    /**
+     * Fails with a {@link java.util.concurrent.TimeoutException} when the call has not completed within the budget.
+     */
+    public <T> Mono<T> within(Mono<T> call) {
+        if (budget == null) {
+            return call;
+        }
+        return Mono.defer(() -> call.timeout(budget)
+                .contextWrite(context()));
+    }
+
+    /**
+     * Fails with a {@link java.util.concurrent.TimeoutException} when the first element has not arrived within the
+     * budget, once streaming only the response timeout applies, so long listings are not cut off.
+     */
+    public <T> Flux<T> within(Flux<T> call) {
+        if (budget == null) {
+            return call;
+        }
+        return Flux.defer(() -> call.timeout(Mono.delay(budget), element -> Mono.never())
+                .contextWrite(context()));
+    }
+
+    private Context context() {
+        Context context = Context.of(EXPIRES_AT, System.nanoTime() + budget.toNanos());
+        return responseTimeout == null ? context : context.put(RESPONSE_TIMEOUT, responseTimeout);
+    }
+
+    /**
+     * Sends the remaining budget in the {@value #HEADER} header, in milliseconds, and sets the response timeout of
+     * the attempt to the smaller of the operation's response timeout and the remaining budget. An attempt with less
+     * than a millisecond left fails with a {@link GatewayTimeoutException} without being sent, a zero response
+     * timeout would disable it instead.
+     */
+    public static ExchangeFilterFunction propagation() {
+        return (request, next) -> Mono.deferContextual(context -> {
+            if (!context.hasKey(EXPIRES_AT)) {
+                return next.exchange(request);
+            }
+            long remainingMillis = NANOSECONDS.toMillis(context.<Long>get(EXPIRES_AT) - System.nanoTime());
+            if (remainingMillis <= 0) {
+                return Mono.error(new GatewayTimeoutException("External Service did not answer within the deadline", GATEWAY_TIMEOUT.value()));
+            }
+            Duration remaining = Duration.ofMillis(remainingMillis);
+            Duration responseTimeout = context.<Duration>getOrEmpty(RESPONSE_TIMEOUT)
+                    .filter(timeout -> timeout.toMillis() > 0 && timeout.compareTo(remaining) < 0)
+                    .orElse(remaining);
+            ClientRequest withDeadline = ClientRequest.from(request)
+                    .header(HEADER, String.valueOf(remaining.toMillis()))
+                    .httpRequest(httpRequest -> {
+                        Object nativeRequest = httpRequest.getNativeRequest();
+                        if (nativeRequest instanceof HttpClientRequest) {
+                            ((HttpClientRequest) nativeRequest).responseTimeout(responseTimeout);
+                        }
+                    })
+                    .build();
+            return next.exchange(withDeadline);
+        });
+    }
+
+}
@@ -0,0 +1,125 @@
+package com.schambeck.webclient.reactive;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Sends a second, hedged call when the first one has not answered within the hedge delay,
+ * the first call to signal wins and the other one is cancelled. The delay is either fixed or
+ * the rolling latency percentile of successful calls, and hedges are capped by a token budget
+ * refilled by a fraction of a token per call, so only that fraction of calls can be hedged.
+ * Only use it for idempotent calls.
+ */
+public class Hedge {
+
+    private static final long TOKEN = 1000;
+    private static final long MAX_TOKENS = 10 * TOKEN;
+
+    private final boolean enabled;
+    private final Duration delay;
+    private final long budget;
+    private final Timer latency;
+    private final Counter hedges;
+    private final Counter wins;
+    private final Counter skipped;
+    private long tokens;
+
+    private Hedge() {
+        this.enabled = false;
+        this.delay = null;
+        this.budget = 0;
+        this.latency = null;
+        this.hedges = null;
+        this.wins = null;
+        this.skipped = null;
+    }
+
+    /**
+     * @param delay      fixed hedge delay, also used while no latency percentile is available yet
+     * @param percentile latency percentile used as hedge delay, e.g. 0.95, or 0 for the fixed delay
+     * @param budget     fraction of calls allowed to be hedged, e.g. 0.1
+     */
+    public Hedge(MeterRegistry registry, String operation, Duration delay, double percentile, double budget) {
+        this.enabled = true;
+        this.delay = delay;
+        this.budget = Math.round(budget * TOKEN);
+        Timer.Builder latencyBuilder = Timer.builder("invoice.client.hedge.latency")
+                .tag("operation", operation)
+                .description("Latency of successful calls the hedge delay is derived from");
+        if (percentile > 0) {
+            latencyBuilder.publishPercentiles(percentile).distributionStatisticExpiry(Duration.ofMinutes(1));
+        }
+        this.latency = latencyBuilder.register(registry);
+        this.hedges = Counter.builder("invoice.client.hedges")
+                .tag("operation", operation)
+                .description("Number of hedged calls sent")
+                .register(registry);
+        this.wins = Counter.builder("invoice.client.hedge.wins")
+                .tag("operation", operation)
+                .description("Number of hedged calls that answered before the first call")
+                .register(registry);
+        this.skipped = Counter.builder("invoice.client.hedges.skipped")
+                .tag("operation", operation)
+                .description("Number of hedged calls not sent because the hedge budget was exhausted")
+                .register(registry);
+    }
+
+    public static Hedge disabled() {
+        return new Hedge();
+    }
+
+    public <T> Mono<T> execute(Supplier<Mono<T>> call) {
+        if (!enabled) {
+            return Mono.defer(call);
+        }
+        return Mono.defer(() -> {
+            deposit();
+            Mono<T> hedged = Mono.delay(delay())
+                    .flatMap(tick -> {
+                        if (!withdraw()) {
+                            skipped.increment();
+                            return Mono.never();
+                        }
+                        hedges.increment();
+                        return timed(call).doOnSuccess(value -> wins.increment());
+                    });
+            return Mono.firstWithSignal(timed(call), hedged);
+        });
+    }
+
+    private <T> Mono<T> timed(Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return Mono.defer(call).doOnSuccess(value -> latency.record(System.nanoTime() - start, NANOSECONDS));
+        });
+    }
+
+    Duration delay() {
+        ValueAtPercentile[] percentiles = latency.takeSnapshot().percentileValues();
+        if (percentiles.length == 0 || percentiles[0].value() == 0) {
+            return delay;
+        }
+        return Duration.ofNanos((long) percentiles[0].value(NANOSECONDS));
+    }
+
+    private synchronized void deposit() {
+        tokens = Math.min(MAX_TOKENS, tokens + budget);
+    }
+
+    private synchronized boolean withdraw() {
+        if (tokens < TOKEN) {
+            return false;
+        }
+        tokens -= TOKEN;
+        return true;
+    }
+
+}
@@ -0,0 +1,146 @@
+package com.schambeck.webclient.reactive;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Collects submitted items into batches sent by a single call, a batch is sent once it reaches the maximum size
+ * or when the linger time after its first item has passed. The batch call answers with one result per item in
+ * submission order, each submitter gets its own result, and the error of the batch call if it fails.
+ * Items are sent even if their submitter cancels, as for any other write-behind.
+ */
+public class MicroBatcher<T, R> {
+
+    private final int maxSize;
+    private final Duration linger;
+    private final Function<List<T>, Flux<R>> batchCall;
+    private final Scheduler scheduler;
+    private final DistributionSummary batchSize;
+    private final Counter sizeFlushes;
+    private final Counter lingerFlushes;
+    private List<Pending<T, R>> pending = new ArrayList<>();
+    private long generation;
+
+    public MicroBatcher(MeterRegistry registry, String operation, Batching settings, Function<List<T>, Flux<R>> batchCall) {
+        this(registry, operation, settings, batchCall, Schedulers.parallel());
+    }
+
+    MicroBatcher(MeterRegistry registry, String operation, Batching settings, Function<List<T>, Flux<R>> batchCall, Scheduler scheduler) {
+        this.maxSize = settings.getMaxSize();
+        this.linger = settings.getLinger();
+        this.batchCall = batchCall;
+        this.scheduler = scheduler;
+        this.batchSize = DistributionSummary.builder("invoice.client.batch.size")
+                .tag("operation", operation)
+                .description("Number of items per batch call")
+                .register(registry);
+        this.sizeFlushes = flushes(registry, operation, "size");
+        this.lingerFlushes = flushes(registry, operation, "linger");
+        Gauge.builder("invoice.client.batch.pending", this, MicroBatcher::pending)
+                .tag("operation", operation)
+                .description("Number of items waiting for the next batch call")
+                .register(registry);
+    }
+
+    private static Counter flushes(MeterRegistry registry, String operation, String trigger) {
+        return Counter.builder("invoice.client.batch.flushes")
+                .tag("operation", operation)
+                .tag("trigger", trigger)
+                .description("Number of batch calls, by whether the batch was full or its linger time passed")
+                .register(registry);
+    }
+
+    public Mono<R> submit(T item) {
+        return Mono.defer(() -> {
+            Pending<T, R> submitted = new Pending<>(item);
+            List<Pending<T, R>> full = null;
+            synchronized (this) {
+                pending.add(submitted);
+                if (pending.size() >= maxSize) {
+                    full = drain();
+                } else if (pending.size() == 1) {
+                    long current = generation;
+                    scheduler.schedule(() -> lingered(current), linger.toNanos(), TimeUnit.NANOSECONDS);
+                }
+            }
+            if (full != null) {
+                sizeFlushes.increment();
+                send(full);
+            }
+            return submitted.result.asMono();
+        });
+    }
+
+    private void lingered(long expected) {
+        List<Pending<T, R>> batch;
+        synchronized (this) {
+            // the batch this timer was started for has already been sent because it was full
+            if (generation != expected || pending.isEmpty()) {
+                return;
+            }
+            batch = drain();
+        }
+        lingerFlushes.increment();
+        send(batch);
+    }
+
+    private List<Pending<T, R>> drain() {
+        List<Pending<T, R>> batch = pending;
+        pending = new ArrayList<>(maxSize);
+        generation++;
+        return batch;
+    }
+
+    private synchronized int pending() {
+        return pending.size();
+    }
+
+    private void send(List<Pending<T, R>> batch) {
+        batchSize.record(batch.size());
+        List<T> items = new ArrayList<>(batch.size());
+        for (Pending<T, R> each : batch) {
+            items.add(each.item);
+        }
+        Iterator<Pending<T, R>> waiting = batch.iterator();
+        Flux.defer(() -> batchCall.apply(items))
+                .subscribe(result -> {
+                    if (waiting.hasNext()) {
+                        waiting.next().result.tryEmitValue(result);
+                    }
+                }, throwable -> {
+                    while (waiting.hasNext()) {
+                        waiting.next().result.tryEmitError(throwable);
+                    }
+                }, () -> {
+                    while (waiting.hasNext()) {
+                        waiting.next().result.tryEmitError(new IllegalStateException("Batch call answered fewer results than items"));
+                    }
+                });
+    }
+
+    private static class Pending<T, R> {
+
+        private final T item;
+        private final Sinks.One<R> result = Sinks.one();
+
+        private Pending(T item) {
+            this.item = item;
+        }
+
+    }
+
+}
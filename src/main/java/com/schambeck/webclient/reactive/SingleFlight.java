@@ -0,0 +1,46 @@
+package com.schambeck.webclient.reactive;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicates concurrent calls for the same key: while a call is in flight, every other
+ * subscriber for that key shares its result or error instead of starting a new call.
+ */
+public class SingleFlight<K, V> {
+
+    private final Map<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter coalesced;
+
+    public SingleFlight(MeterRegistry registry, String operation) {
+        this.coalesced = Counter.builder("invoice.client.coalesced")
+                .tag("operation", operation)
+                .description("Number of calls served by an identical call already in flight")
+                .register(registry);
+    }
+
+    public Mono<V> execute(K key, Supplier<Mono<V>> call) {
+        return Mono.defer(() -> {
+            AtomicReference<Mono<V>> self = new AtomicReference<>();
+            // leave the map before the result is delivered, a subscriber arriving afterwards must not get the stale result
+            Mono<V> flight = Mono.defer(call)
+                    .doOnTerminate(() -> inFlight.remove(key, self.get()))
+                    .doFinally(signal -> inFlight.remove(key, self.get()))
+                    .share();
+            self.set(flight);
+            Mono<V> existing = inFlight.putIfAbsent(key, flight);
+            if (existing != null) {
+                coalesced.increment();
+                return existing;
+            }
+            return flight;
+        });
+    }
+
+}
@@ -0,0 +1,67 @@
+package com.schambeck.webclient.reactive;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Guards a streamed call with a circuit breaker that, unlike {@code CircuitBreakerOperator}, records the call when
+ * its first element arrives: the time to the first element is what the slow call threshold is compared to, so a
+ * long listing does not count as a slow call, and an error after the first element is not recorded, like the
+ * concurrency limiter does. A call cancelled before its first element gives its permission back unrecorded.
+ */
+public final class StreamingCircuitBreaker {
+
+    private StreamingCircuitBreaker() {
+    }
+
+    public static <T> Flux<T> untilFirstElement(CircuitBreaker circuitBreaker, Flux<T> call) {
+        return Flux.defer(() -> {
+            if (!circuitBreaker.tryAcquirePermission()) {
+                return Flux.error(CallNotPermittedException.createCallNotPermittedException(circuitBreaker));
+            }
+            Call permission = new Call(circuitBreaker);
+            return call.doOnNext(value -> permission.succeeded())
+                    .doOnComplete(permission::succeeded)
+                    .doOnError(permission::failed)
+                    .doOnCancel(permission::cancelled);
+        });
+    }
+
+    /**
+     * A call's permission, recorded once: the elements after the first one, and a cancel after it, change nothing.
+     */
+    private static final class Call {
+
+        private final CircuitBreaker circuitBreaker;
+        private final long start;
+        private final AtomicBoolean recorded = new AtomicBoolean();
+
+        private Call(CircuitBreaker circuitBreaker) {
+            this.circuitBreaker = circuitBreaker;
+            this.start = circuitBreaker.getCurrentTimestamp();
+        }
+
+        void succeeded() {
+            if (recorded.compareAndSet(false, true)) {
+                circuitBreaker.onSuccess(circuitBreaker.getCurrentTimestamp() - start, circuitBreaker.getTimestampUnit());
+            }
+        }
+
+        void failed(Throwable throwable) {
+            if (recorded.compareAndSet(false, true)) {
+                circuitBreaker.onError(circuitBreaker.getCurrentTimestamp() - start, circuitBreaker.getTimestampUnit(), throwable);
+            }
+        }
+
+        void cancelled() {
+            if (recorded.compareAndSet(false, true)) {
+                circuitBreaker.releasePermission();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,36 @@
+package com.schambeck.webclient.service;
+
+import com.schambeck.webclient.limit.ConcurrencyLimit;
+import com.schambeck.webclient.limit.RetryBudget;
+import com.schambeck.webclient.reactive.Hedge;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import lombok.Value;
+import lombok.With;
+
+/**
+ * How the upstream calls protect themselves and the upstream: circuit breaker, findById hedge, deadlines,
+ * adaptive concurrency limit and retry budget.
+ */
+@Value
+@With
+public class InvoiceResilience {
+
+    CircuitBreaker circuitBreaker;
+
+    Hedge findByIdHedge;
+
+    InvoiceTimeouts timeouts;
+
+    ConcurrencyLimit concurrencyLimit;
+
+    RetryBudget retryBudget;
+
+    /**
+     * A default circuit breaker, without hedging, deadlines, concurrency limit or retry budget.
+     */
+    public static InvoiceResilience defaults() {
+        return new InvoiceResilience(CircuitBreaker.ofDefaults("invoice-upstream"), Hedge.disabled(), InvoiceTimeouts.none(),
+                ConcurrencyLimit.unlimited(), RetryBudget.unlimited());
+    }
+
+}
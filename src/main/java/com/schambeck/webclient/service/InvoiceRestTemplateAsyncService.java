@@ -0,0 +1,28 @@
+package com.schambeck.webclient.service;
+
+import com.schambeck.webclient.domain.Invoice;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public interface InvoiceRestTemplateAsyncService {
+
+    CompletableFuture<List<Invoice>> findAll();
+
+    CompletableFuture<List<Invoice>> findPage(Long afterId, int limit);
+
+    /**
+     * The listing parsed while it is read, on a bulkhead thread until it ends.
+     */
+    Flux<Invoice> streamAll();
+
+    CompletableFuture<Invoice> findById(Long id);
+
+    CompletableFuture<Invoice> create(Invoice invoice);
+
+    CompletableFuture<Invoice> update(Long id, Invoice invoice);
+
+    CompletableFuture<Void> delete(Long id);
+
+}
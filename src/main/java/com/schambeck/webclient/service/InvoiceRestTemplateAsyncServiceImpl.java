@@ -0,0 +1,116 @@
+package com.schambeck.webclient.service;
+
+import com.schambeck.webclient.config.ConditionalOnRestTemplate;
+import com.schambeck.webclient.domain.Invoice;
+import com.schambeck.webclient.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Supplier;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+
+/**
+ * Runs the blocking RestTemplate calls on a dedicated bounded executor, a bulkhead that keeps a slow
+ * upstream from exhausting the servlet threads. Calls beyond the pool and its queue are rejected with a 503.
+ */
+@Service
+@ConditionalOnRestTemplate
+@ConditionalOnProperty(name = "app.rest-app.rest-template.async.enabled", havingValue = "true")
+class InvoiceRestTemplateAsyncServiceImpl implements InvoiceRestTemplateAsyncService {
+
+    static final String EXECUTOR_NAME = "invoice-rest-template";
+
+    private final InvoiceRestTemplateService service;
+    private final ThreadPoolExecutor threadPool;
+    private final ExecutorService executor;
+    private final Scheduler scheduler;
+    private final Counter rejected;
+
+    InvoiceRestTemplateAsyncServiceImpl(InvoiceRestTemplateService service,
+                                        @Value("${app.rest-app.rest-template.async.pool-size:32}") int poolSize,
+                                        @Value("${app.rest-app.rest-template.async.queue-capacity:100}") int queueCapacity,
+                                        MeterRegistry registry) {
+        this.service = service;
+        this.threadPool = new ThreadPoolExecutor(poolSize, poolSize, 60, SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory(EXECUTOR_NAME + "-"));
+        this.executor = ExecutorServiceMetrics.monitor(registry, threadPool, EXECUTOR_NAME);
+        this.scheduler = Schedulers.fromExecutorService(executor, EXECUTOR_NAME);
+        this.rejected = Counter.builder("invoice.client.bulkhead.rejected")
+                .tag("client", "resttemplate")
+                .description("Number of calls rejected because the executor and its queue were full")
+                .register(registry);
+    }
+
+    @Override
+    public CompletableFuture<List<Invoice>> findAll() {
+        return supply(service::findAll);
+    }
+
+    @Override
+    public CompletableFuture<List<Invoice>> findPage(Long afterId, int limit) {
+        return supply(() -> service.findPage(afterId, limit));
+    }
+
+    @Override
+    public Flux<Invoice> streamAll() {
+        return Flux.fromStream(service::streamAll)
+                .subscribeOn(scheduler)
+                .onErrorMap(RejectedExecutionException.class, e -> rejected());
+    }
+
+    @Override
+    public CompletableFuture<Invoice> findById(Long id) {
+        return supply(() -> service.findById(id));
+    }
+
+    @Override
+    public CompletableFuture<Invoice> create(Invoice invoice) {
+        return supply(() -> service.create(invoice));
+    }
+
+    @Override
+    public CompletableFuture<Invoice> update(Long id, Invoice invoice) {
+        return supply(() -> service.update(id, invoice));
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(Long id) {
+        return supply(() -> service.delete(id));
+    }
+
+    private <T> CompletableFuture<T> supply(Supplier<T> call) {
+        try {
+            return CompletableFuture.supplyAsync(call, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(rejected());
+        }
+    }
+
+    private ServiceUnavailableException rejected() {
+        rejected.increment();
+        return new ServiceUnavailableException("Too many concurrent requests to the External Service", SERVICE_UNAVAILABLE.value());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        threadPool.shutdown();
+    }
+
+}
@@ -3,11 +3,19 @@ package com.schambeck.webclient.service;
 import com.schambeck.webclient.domain.Invoice;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface InvoiceRestTemplateService {
 
     List<Invoice> findAll();
 
+    /**
+     * Listing parsed while it is read, the stream holds the upstream connection and must be closed.
+     */
+    Stream<Invoice> streamAll();
+
+    List<Invoice> findPage(Long afterId, int limit);
+
     Invoice findById(Long id);
 
     Invoice create(Invoice invoice);
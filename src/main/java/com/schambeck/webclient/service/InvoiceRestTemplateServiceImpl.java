@@ -1,46 +1,179 @@
 package com.schambeck.webclient.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.schambeck.webclient.config.ConditionalOnRestTemplate;
 import com.schambeck.webclient.domain.Invoice;
-import lombok.RequiredArgsConstructor;
+import com.schambeck.webclient.exception.ServiceUnavailableException;
+import com.schambeck.webclient.json.JsonArrayStreams;
+import com.schambeck.webclient.limit.AdaptiveConcurrencyLimiter;
+import com.schambeck.webclient.limit.ConcurrencyLimit;
+import com.schambeck.webclient.limit.RetryBudget;
+import com.schambeck.webclient.metrics.InvoiceClientMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.ResponseErrorHandler;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import static org.springframework.http.HttpMethod.*;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
 
 @Service
-@RequiredArgsConstructor
+@ConditionalOnRestTemplate
 class InvoiceRestTemplateServiceImpl implements InvoiceRestTemplateService {
 
+    private static final int MAX_RETRIES = 3;
+    private static final double JITTER = 0.5;
+
     private final RestTemplate restTemplate;
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final RetryBudget retryBudget;
+    private final ObjectReader invoiceReader;
+    private final Duration firstBackoff;
+    private final InvoiceClientMetrics metrics;
+
+    @Autowired
+    InvoiceRestTemplateServiceImpl(RestTemplate restTemplate, ConcurrencyLimit concurrencyLimit, RetryBudget retryBudget, MeterRegistry registry) {
+        this(restTemplate, concurrencyLimit, retryBudget, Duration.ofSeconds(2), registry);
+    }
+
+    InvoiceRestTemplateServiceImpl(RestTemplate restTemplate, ConcurrencyLimit concurrencyLimit, RetryBudget retryBudget, Duration firstBackoff, MeterRegistry registry) {
+        this.restTemplate = restTemplate;
+        this.limiter = new AdaptiveConcurrencyLimiter(registry, "resttemplate", concurrencyLimit);
+        this.retryBudget = retryBudget;
+        this.invoiceReader = objectMapper(restTemplate).readerFor(Invoice.class);
+        this.firstBackoff = firstBackoff;
+        this.metrics = new InvoiceClientMetrics(registry, "resttemplate");
+    }
 
     @Override
     public List<Invoice> findAll() {
         ParameterizedTypeReference<List<Invoice>> type = new ParameterizedTypeReference<List<Invoice>>() {};
-        return restTemplate.exchange("/invoices", GET,null, type).getBody();
+        return retrying("findAll", () -> limiter.limit(() -> metrics.record("findAll", () -> restTemplate.exchange("/invoices", GET,null, type).getBody())));
+    }
+
+    /**
+     * Only opening the listing is timed, limited and retried, the invoices are then read as the caller consumes the stream.
+     */
+    @Override
+    public Stream<Invoice> streamAll() {
+        return retrying("streamAll", () -> limiter.limit(() -> metrics.record("streamAll", this::openInvoiceStream)));
+    }
+
+    @Override
+    public List<Invoice> findPage(Long afterId, int limit) {
+        ParameterizedTypeReference<List<Invoice>> type = new ParameterizedTypeReference<List<Invoice>>() {};
+        String uri = afterId == null ? "/invoices?limit={limit}" : "/invoices?afterId={afterId}&limit={limit}";
+        Object[] variables = afterId == null ? new Object[] {limit} : new Object[] {afterId, limit};
+        return retrying("findPage", () -> limiter.limit(() -> metrics.record("findPage", () -> restTemplate.exchange(uri, GET, null, type, variables).getBody())));
     }
 
     @Override
     public Invoice findById(Long id) {
-        return restTemplate.getForObject("/invoices/{id}", Invoice.class, id);
+        return retrying("findById", () -> limiter.limit(() -> metrics.record("findById", () -> restTemplate.getForObject("/invoices/{id}", Invoice.class, id))));
     }
 
     @Override
     public Invoice create(Invoice invoice) {
-        return restTemplate.postForObject("/invoices", invoice, Invoice.class);
+        return limiter.limit(() -> metrics.record("create", () -> restTemplate.postForObject("/invoices", invoice, Invoice.class)));
     }
 
     @Override
     public Invoice update(Long id, Invoice invoice) {
-        return restTemplate.exchange("/invoices/{id}", PUT, new HttpEntity<>(invoice), Invoice.class, id).getBody();
+        return limiter.limit(() -> metrics.record("update", () -> restTemplate.exchange("/invoices/{id}", PUT, new HttpEntity<>(invoice), Invoice.class, id).getBody()));
     }
 
     @Override
     public Void delete(Long id) {
-        return restTemplate.exchange("/invoices/{id}", DELETE, null, Void.class, id).getBody();
+        return limiter.limit(() -> metrics.record("delete", () -> restTemplate.exchange("/invoices/{id}", DELETE, null, Void.class, id).getBody()));
+    }
+
+    /**
+     * Sends the request like {@link RestTemplate#execute}, which closes the response before returning,
+     * here the response is closed with the stream instead so the body can be parsed as it arrives.
+     */
+    private Stream<Invoice> openInvoiceStream() {
+        URI uri = restTemplate.getUriTemplateHandler().expand("/invoices");
+        try {
+            ClientHttpRequest request = restTemplate.getRequestFactory().createRequest(uri, GET);
+            request.getHeaders().setAccept(List.of(APPLICATION_JSON));
+            ClientHttpResponse response = request.execute();
+            try {
+                ResponseErrorHandler errorHandler = restTemplate.getErrorHandler();
+                if (errorHandler.hasError(response)) {
+                    errorHandler.handleError(uri, GET, response);
+                }
+                return JsonArrayStreams.<Invoice>stream(invoiceReader.createParser(response.getBody()), invoiceReader)
+                        .onClose(response::close);
+            } catch (IOException | RuntimeException e) {
+                response.close();
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new ResourceAccessException("I/O error on GET request for \"" + uri + "\": " + e.getMessage(), e);
+        }
+    }
+
+    private static ObjectMapper objectMapper(RestTemplate restTemplate) {
+        return restTemplate.getMessageConverters().stream()
+                .filter(MappingJackson2HttpMessageConverter.class::isInstance)
+                .map(converter -> ((MappingJackson2HttpMessageConverter) converter).getObjectMapper())
+                .findFirst()
+                .orElseGet(() -> Jackson2ObjectMapperBuilder.json().build());
+    }
+
+    /**
+     * Retries server errors and I/O failures of a read with jittered exponential backoff, like the WebClient
+     * path, as long as the retry budget allows. A failure left once the retries are exhausted or refused by the
+     * budget is answered with the same 503 as on the WebClient path.
+     */
+    private <T> T retrying(String operation, Supplier<T> call) {
+        retryBudget.deposit(operation);
+        for (int retries = 0; ; retries++) {
+            try {
+                return call.get();
+            } catch (HttpServerErrorException | ResourceAccessException e) {
+                if (retries == MAX_RETRIES || !retryBudget.tryRetry(operation)) {
+                    throw retriesExhausted(operation);
+                }
+                metrics.retry(operation);
+                try {
+                    Thread.sleep(backoff(retries));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private ServiceUnavailableException retriesExhausted(String operation) {
+        metrics.retriesExhausted(operation);
+        return new ServiceUnavailableException("External Service failed to process after max retries", SERVICE_UNAVAILABLE.value());
+    }
+
+    private long backoff(int retries) {
+        long backoff = firstBackoff.toMillis() << retries;
+        long jitter = (long) (backoff * JITTER);
+        return backoff - jitter + ThreadLocalRandom.current().nextLong(2 * jitter + 1);
     }
 
 }
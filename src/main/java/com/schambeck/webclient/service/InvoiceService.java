@@ -1,17 +1,37 @@
 package com.schambeck.webclient.service;
 
+import com.schambeck.webclient.aggregate.Granularity;
 import com.schambeck.webclient.domain.Invoice;
+import com.schambeck.webclient.domain.InvoiceAggregates;
+import com.schambeck.webclient.domain.InvoiceResult;
+import org.springframework.core.io.buffer.DataBuffer;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDate;
+
 public interface InvoiceService {
 
     Flux<Invoice> findAll();
 
+    Flux<Invoice> findAllResumable();
+
+    Flux<DataBuffer> findAllRaw();
+
+    Flux<Invoice> findPage(Long afterId, int limit);
+
+    Flux<Invoice> findAllPaged(int pageSize, boolean prefetch);
+
     Mono<Invoice> findById(Long id);
 
+    Mono<InvoiceAggregates> aggregate(Granularity granularity, LocalDate from, LocalDate to);
+
+    Flux<InvoiceResult> findAllById(Flux<Long> ids, int concurrency, boolean ordered);
+
     Mono<Invoice> create(Invoice invoice);
 
+    Flux<InvoiceResult> createAll(Flux<Invoice> invoices, int concurrency);
+
     Mono<Invoice> update(Long id, Invoice invoice);
 
     Mono<Void> delete(Long id);
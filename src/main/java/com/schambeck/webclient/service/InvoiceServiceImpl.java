@@ -1,89 +1,526 @@
 package com.schambeck.webclient.service;
 
+import com.schambeck.webclient.aggregate.Granularity;
+import com.schambeck.webclient.aggregate.InvoiceAggregator;
+import com.schambeck.webclient.cache.InvoiceCache;
+import com.schambeck.webclient.cache.RevalidationCache;
 import com.schambeck.webclient.exception.ClientErrorException;
+import com.schambeck.webclient.exception.GatewayTimeoutException;
 import com.schambeck.webclient.exception.ServerErrorException;
 import com.schambeck.webclient.exception.ServiceUnavailableException;
 import com.schambeck.webclient.domain.Invoice;
-import lombok.RequiredArgsConstructor;
+import com.schambeck.webclient.domain.InvoiceAggregates;
+import com.schambeck.webclient.domain.InvoiceResult;
+import com.schambeck.webclient.limit.AdaptiveConcurrencyLimiter;
+import com.schambeck.webclient.limit.RetryBudget;
+import com.schambeck.webclient.metrics.InvoiceClientMetrics;
+import com.schambeck.webclient.reactive.Batching;
+import com.schambeck.webclient.reactive.Deadline;
+import com.schambeck.webclient.reactive.Hedge;
+import com.schambeck.webclient.reactive.MicroBatcher;
+import com.schambeck.webclient.reactive.SingleFlight;
+import com.schambeck.webclient.reactive.StreamingCircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.handler.timeout.ReadTimeoutException;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClient.ResponseSpec;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Exceptions;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.netty.http.client.PrematureCloseException;
 import reactor.util.retry.Retry;
+import reactor.util.retry.RetryBackoffSpec;
 
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
 import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import static org.springframework.http.HttpStatus.BAD_GATEWAY;
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.CREATED;
+import static org.springframework.http.HttpStatus.GATEWAY_TIMEOUT;
+import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
+import static org.springframework.http.HttpStatus.NOT_MODIFIED;
+import static org.springframework.http.HttpStatus.OK;
 import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
 import static org.springframework.http.MediaType.APPLICATION_NDJSON;
 
 @Service
-@RequiredArgsConstructor
 public class InvoiceServiceImpl implements InvoiceService {
 
+    private static final String ALL = "/invoices";
+
     private final WebClient client;
+    private final InvoiceCache cache;
+    private final RevalidationCache revalidationCache;
+    private final InvoiceAggregator aggregator;
+    private final Validator validator;
+    private final CircuitBreaker circuitBreaker;
+    private final Hedge findByIdHedge;
+    private final InvoiceTimeouts timeouts;
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final RetryBudget retryBudget;
+    private final InvoiceClientMetrics metrics;
+    private final SingleFlight<Long, Invoice> findByIdFlight;
+    private final SingleFlight<String, Void> aggregateFlight;
+    private final MicroBatcher<Invoice, InvoiceResult> createBatcher;
+
+    public InvoiceServiceImpl(WebClient client, InvoiceCache cache, RevalidationCache revalidationCache, InvoiceAggregator aggregator, Validator validator,
+                              InvoiceResilience resilience, Batching createBatching, MeterRegistry registry) {
+        this.client = client.mutate().filter(Deadline.propagation()).build();
+        this.cache = cache;
+        this.revalidationCache = revalidationCache;
+        this.aggregator = aggregator;
+        this.validator = validator;
+        this.circuitBreaker = resilience.getCircuitBreaker();
+        this.findByIdHedge = resilience.getFindByIdHedge();
+        this.timeouts = resilience.getTimeouts();
+        this.limiter = new AdaptiveConcurrencyLimiter(registry, "webclient", resilience.getConcurrencyLimit());
+        this.retryBudget = resilience.getRetryBudget();
+        this.metrics = new InvoiceClientMetrics(registry, "webclient");
+        this.findByIdFlight = new SingleFlight<>(registry, "findById");
+        this.aggregateFlight = new SingleFlight<>(registry, "aggregate");
+        this.createBatcher = createBatching.isEnabled() ? new MicroBatcher<>(registry, "create", createBatching, this::createBatch) : null;
+    }
 
     @Override
     public Flux<Invoice> findAll() {
-        return client.get()
-                .uri("/invoices")
-                .accept(APPLICATION_NDJSON, APPLICATION_JSON)
-                .retrieve()
-                .onStatus(HttpStatus::is4xxClientError, response -> Mono.error(new ClientErrorException("Client error", response.rawStatusCode())))
-                .onStatus(HttpStatus::is5xxServerError, response -> Mono.just(new ServerErrorException("Server error", response.rawStatusCode())))
-                .bodyToFlux(Invoice.class)
-                .retryWhen(Retry.backoff(3, Duration.ofSeconds(2))
-                        .filter(throwable -> throwable instanceof ServerErrorException)
-                        .onRetryExhaustedThrow((retryBackoffSpec, retrySignal) -> {
-                            throw new ServiceUnavailableException("External Service failed to process after max retries", SERVICE_UNAVAILABLE.value());
-                        }));
+        return Flux.defer(() -> {
+            Optional<RevalidationCache.Entry<List<Invoice>>> cached = revalidationCache.get(ALL);
+            return withDeadline(timeouts.getRead(), upstream("findAll", onStatus("findAll", client.get()
+                            .uri(ALL)
+                            .accept(APPLICATION_NDJSON, APPLICATION_JSON)
+                            .headers(headers -> cached.ifPresent(entry -> entry.addConditions(headers)))
+                            .retrieve())
+                            .toEntityFlux(Invoice.class)
+                            .flatMapMany(entity -> revalidated("findAll", entity, cached)))
+                    .retryWhen(retry("findAll", false)));
+        });
+    }
+
+    /**
+     * Like {@link #findAll()}, but a listing that fails halfway is resumed after the id of the last delivered
+     * invoice instead of starting over, relying on the upstream listing invoices ordered by id. Invoices not after
+     * that id are dropped, so none is delivered twice even if the upstream ignores {@code afterId}. The retries
+     * start over whenever invoices were delivered since the previous failure. Responses are not revalidated.
+     */
+    @Override
+    public Flux<Invoice> findAllResumable() {
+        return Flux.defer(() -> {
+            AtomicReference<Long> lastId = new AtomicReference<>();
+            return withDeadline(timeouts.getRead(), Flux.defer(() -> upstream("findAll", onStatus("findAll", client.get()
+                            .uri(uriBuilder -> uriBuilder.path(ALL)
+                                    .queryParamIfPresent("afterId", Optional.ofNullable(lastId.get()))
+                                    .build())
+                            .accept(APPLICATION_NDJSON, APPLICATION_JSON)
+                            .retrieve())
+                            .bodyToFlux(Invoice.class)
+                            .onErrorMap(this::isConnectionClosed, throwable -> connectionClosed("findAll"))))
+                    .filter(invoice -> lastId.get() == null || invoice.getId() > lastId.get())
+                    .doOnNext(invoice -> lastId.set(invoice.getId()))
+                    .retryWhen(retry("findAll", true)));
+        });
+    }
+
+    private Flux<Invoice> revalidated(String operation, ResponseEntity<Flux<Invoice>> entity, Optional<RevalidationCache.Entry<List<Invoice>>> cached) {
+        if (cached.isPresent()) {
+            metrics.revalidated(operation, entity.getStatusCode() == NOT_MODIFIED);
+            if (entity.getStatusCode() == NOT_MODIFIED) {
+                return Flux.fromIterable(cached.get().getValue());
+            }
+        }
+        Flux<Invoice> body = entity.getBody() == null ? Flux.empty() : entity.getBody();
+        if (!revalidationCache.hasValidators(entity.getHeaders())) {
+            revalidationCache.evict(ALL);
+            return body;
+        }
+        int maxListingSize = revalidationCache.getMaxListingSize();
+        List<Invoice> invoices = new ArrayList<>();
+        AtomicBoolean tooLarge = new AtomicBoolean();
+        return body.doOnNext(invoice -> {
+                    if (tooLarge.get()) {
+                        return;
+                    }
+                    if (invoices.size() < maxListingSize) {
+                        invoices.add(invoice);
+                    } else {
+                        tooLarge.set(true);
+                        invoices.clear();
+                        revalidationCache.evict(ALL);
+                    }
+                })
+                .doOnComplete(() -> {
+                    if (!tooLarge.get()) {
+                        revalidationCache.put(ALL, invoices, entity.getHeaders());
+                    }
+                });
+    }
+
+    /**
+     * The upstream listing as it arrives. Raw bytes cannot be deduplicated, so a failure is only retried before
+     * the first buffer was delivered, a failure after that ends the listing.
+     */
+    @Override
+    public Flux<DataBuffer> findAllRaw() {
+        return Flux.defer(() -> {
+            AtomicBoolean delivered = new AtomicBoolean();
+            return withDeadline(timeouts.getRead(), upstream("findAllRaw", onStatus("findAllRaw", client.get()
+                            .uri("/invoices")
+                            .accept(APPLICATION_NDJSON)
+                            .retrieve())
+                            .bodyToFlux(DataBuffer.class))
+                    .doOnNext(buffer -> delivered.set(true))
+                    .retryWhen(retryUntilDelivered("findAllRaw", delivered)));
+        });
+    }
+
+    /**
+     * One page of invoices ordered by id, those after {@code afterId}, or from the first one when it is {@code null}.
+     */
+    @Override
+    public Flux<Invoice> findPage(Long afterId, int limit) {
+        return withDeadline(timeouts.getRead(), upstream("findPage", onStatus("findPage", client.get()
+                        .uri(uriBuilder -> uriBuilder.path(ALL)
+                                .queryParamIfPresent("afterId", Optional.ofNullable(afterId))
+                                .queryParam("limit", limit)
+                                .build())
+                        .accept(APPLICATION_NDJSON, APPLICATION_JSON)
+                        .retrieve())
+                        .bodyToFlux(Invoice.class))
+                .retryWhen(retry("findPage", false)));
+    }
+
+    /**
+     * All invoices, fetched page by page with the id of the last invoice as cursor, so at most two pages are held
+     * at a time. With {@code prefetch} the next page is requested as soon as the current one has arrived,
+     * otherwise only once its last invoice has been consumed. Invoices not after the cursor are dropped and a page
+     * that does not advance it is the last one, so an upstream ignoring {@code afterId} or {@code limit} cannot
+     * make the listing loop or repeat invoices.
+     */
+    @Override
+    public Flux<Invoice> findAllPaged(int pageSize, boolean prefetch) {
+        return Flux.defer(() -> {
+            AtomicReference<Long> cursor = new AtomicReference<>();
+            AtomicBoolean last = new AtomicBoolean();
+            Mono<List<Invoice>> page = Mono.defer(() -> {
+                        Long afterId = cursor.get();
+                        return findPage(afterId, pageSize)
+                                .filter(invoice -> afterId == null || invoice.getId() > afterId)
+                                .collectList();
+                    })
+                    .doOnNext(invoices -> {
+                        last.set(invoices.size() < pageSize);
+                        if (!invoices.isEmpty()) {
+                            cursor.set(invoices.get(invoices.size() - 1).getId());
+                        }
+                    });
+            if (prefetch) {
+                return page.repeat(() -> !last.get())
+                        .concatMapIterable(Function.identity(), 1);
+            }
+            return page.flatMapMany(Flux::fromIterable)
+                    .repeat(() -> !last.get());
+        });
     }
 
     @Override
     public Mono<Invoice> findById(Long id) {
-        return client.get()
-                .uri(uriBuilder -> uriBuilder.path("/invoices/{id}").build(id))
-                .accept(APPLICATION_JSON)
-                .retrieve()
-                .onStatus(HttpStatus::is4xxClientError, response -> Mono.error(new ClientErrorException("Client error", response.rawStatusCode())))
-                .onStatus(HttpStatus::is5xxServerError, response -> Mono.just(new ServerErrorException("Server error", response.rawStatusCode())))
-                .bodyToMono(Invoice.class)
-                .retryWhen(Retry.backoff(3, Duration.ofSeconds(2))
-                    .filter(throwable -> throwable instanceof ServerErrorException)
-                    .onRetryExhaustedThrow((retryBackoffSpec, retrySignal) -> {
-                        throw new ServiceUnavailableException("External Service failed to process after max retries", SERVICE_UNAVAILABLE.value());
-                    }));
+        return Mono.defer(() -> cache.get(id)
+                .map(Mono::just)
+                .orElseGet(() -> findByIdFlight.execute(id, () -> fetchById(id))));
+    }
+
+    private Mono<Invoice> fetchById(Long id) {
+        String key = key(id);
+        Optional<RevalidationCache.Entry<Invoice>> cached = revalidationCache.get(key);
+        return withDeadline(timeouts.getRead(), findByIdHedge.execute(() -> upstream("findById", onStatus("findById", client.get()
+                        .uri(uriBuilder -> uriBuilder.path("/invoices/{id}").build(id))
+                        .accept(APPLICATION_JSON)
+                        .headers(headers -> cached.ifPresent(entry -> entry.addConditions(headers)))
+                        .retrieve())
+                        .toEntity(Invoice.class)))
+                .retryWhen(retry("findById", false)))
+                .flatMap(entity -> {
+                    if (cached.isPresent()) {
+                        metrics.revalidated("findById", entity.getStatusCode() == NOT_MODIFIED);
+                        if (entity.getStatusCode() == NOT_MODIFIED) {
+                            return Mono.just(cached.get().getValue());
+                        }
+                    }
+                    revalidationCache.put(key, entity.getBody(), entity.getHeaders());
+                    return Mono.justOrEmpty(entity.getBody());
+                })
+                .doOnNext(cache::put);
+    }
+
+    private static String key(Long id) {
+        return ALL + "/" + id;
+    }
+
+    @Override
+    public Mono<InvoiceAggregates> aggregate(Granularity granularity, LocalDate from, LocalDate to) {
+        return Mono.defer(() -> {
+            Mono<InvoiceAggregates> query = Mono.fromCallable(() -> aggregator.query(granularity, from, to));
+            if (aggregator.isFresh()) {
+                return query;
+            }
+            return aggregateFlight.execute(ALL, () -> aggregator.load(findAll())).then(query);
+        });
+    }
+
+    @Override
+    public Flux<InvoiceResult> findAllById(Flux<Long> ids, int concurrency, boolean ordered) {
+        Function<Long, Mono<InvoiceResult>> lookup = id -> findById(id)
+                .map(invoice -> InvoiceResult.success(id, OK.value(), invoice))
+                .onErrorResume(throwable -> Mono.just(toFailure(id, throwable)));
+        return ordered ? ids.flatMapSequential(lookup, concurrency) : ids.flatMap(lookup, concurrency);
+    }
+
+    private InvoiceResult toFailure(Long id, Throwable throwable) {
+        if (throwable instanceof ClientErrorException) {
+            return InvoiceResult.failure(id, ((ClientErrorException) throwable).getStatusCode(), throwable.getMessage());
+        }
+        if (throwable instanceof ServerErrorException) {
+            return InvoiceResult.failure(id, ((ServerErrorException) throwable).getStatusCode(), throwable.getMessage());
+        }
+        if (throwable instanceof ServiceUnavailableException) {
+            return InvoiceResult.failure(id, ((ServiceUnavailableException) throwable).getStatusCode(), throwable.getMessage());
+        }
+        if (throwable instanceof GatewayTimeoutException) {
+            return InvoiceResult.failure(id, ((GatewayTimeoutException) throwable).getStatusCode(), throwable.getMessage());
+        }
+        if (throwable instanceof WebClientResponseException) {
+            return InvoiceResult.failure(id, ((WebClientResponseException) throwable).getRawStatusCode(), throwable.getMessage());
+        }
+        return InvoiceResult.failure(id, INTERNAL_SERVER_ERROR.value(), throwable.getMessage());
     }
 
     @Override
     public Mono<Invoice> create(Invoice invoice) {
-        return client.post()
-                .uri("/invoices")
-                .body(Mono.just(invoice), Invoice.class)
-                .retrieve()
-                .bodyToMono(Invoice.class);
+        if (createBatcher != null) {
+            return createBatcher.submit(invoice).flatMap(this::created);
+        }
+        return withDeadline(timeouts.getWrite(), upstream("create", onStatus("create", client.post()
+                        .uri("/invoices")
+                        .body(Mono.just(invoice), Invoice.class)
+                        .retrieve())
+                        .bodyToMono(Invoice.class)))
+                .doOnNext(cache::put)
+                .doOnNext(aggregator::put)
+                .doOnNext(created -> revalidationCache.evict(ALL));
+    }
+
+    /**
+     * Sends a batch of creates to the upstream bulk endpoint, which answers one result per invoice in the same order.
+     */
+    private Flux<InvoiceResult> createBatch(List<Invoice> invoices) {
+        return withDeadline(timeouts.getWrite(), upstream("createBatch", onStatus("createBatch", client.post()
+                        .uri("/invoices/bulk")
+                        .contentType(APPLICATION_NDJSON)
+                        .accept(APPLICATION_NDJSON)
+                        .body(Flux.fromIterable(invoices), Invoice.class)
+                        .retrieve())
+                        .bodyToFlux(InvoiceResult.class)));
+    }
+
+    private Mono<Invoice> created(InvoiceResult result) {
+        if (result.getStatus() >= 500) {
+            metrics.serverError("create");
+            return Mono.error(new ServerErrorException(result.getError(), result.getStatus()));
+        }
+        if (result.getStatus() >= 400 || result.getInvoice() == null) {
+            metrics.clientError("create");
+            return Mono.error(new ClientErrorException(result.getError(), result.getStatus()));
+        }
+        cache.put(result.getInvoice());
+        aggregator.put(result.getInvoice());
+        revalidationCache.evict(ALL);
+        return Mono.just(result.getInvoice());
+    }
+
+    @Override
+    public Flux<InvoiceResult> createAll(Flux<Invoice> invoices, int concurrency) {
+        return invoices.flatMapSequential(invoice -> {
+            Set<ConstraintViolation<Invoice>> violations = validator.validate(invoice);
+            if (!violations.isEmpty()) {
+                String message = violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining(", "));
+                return Mono.just(InvoiceResult.failure(invoice.getId(), BAD_REQUEST.value(), message));
+            }
+            return create(invoice)
+                    .map(created -> InvoiceResult.success(created.getId(), CREATED.value(), created))
+                    .onErrorResume(throwable -> Mono.just(toFailure(invoice.getId(), throwable)));
+        }, concurrency);
     }
 
     @Override
     public Mono<Invoice> update(Long id, Invoice invoice) {
-        return client.put()
-                .uri(uriBuilder -> uriBuilder.path("/invoices/{id}").build(id))
-                .body(Mono.just(invoice), Invoice.class)
-                .retrieve()
-                .onStatus(HttpStatus::is4xxClientError, response -> Mono.error(new ClientErrorException("Client error", response.rawStatusCode())))
-                .onStatus(HttpStatus::is5xxServerError, response -> Mono.error(new ServerErrorException("Server error", response.rawStatusCode())))
-                .bodyToMono(Invoice.class);
+        return withDeadline(timeouts.getWrite(), upstream("update", onStatus("update", client.put()
+                        .uri(uriBuilder -> uriBuilder.path("/invoices/{id}").build(id))
+                        .body(Mono.just(invoice), Invoice.class)
+                        .retrieve())
+                        .bodyToMono(Invoice.class)))
+                .doOnNext(cache::put)
+                .doOnNext(aggregator::put)
+                .doOnNext(updated -> evictRevalidation(id));
     }
 
     @Override
     public Mono<Void> delete(Long id) {
-        return client.delete()
-                .uri(uriBuilder -> uriBuilder.path("/invoices/{id}").build(id))
-                .retrieve()
-                .onStatus(HttpStatus::is4xxClientError, response -> Mono.error(new ClientErrorException("Client error", response.rawStatusCode())))
-                .onStatus(HttpStatus::is5xxServerError, response -> Mono.error(new ServerErrorException("Server error", response.rawStatusCode())))
-                .bodyToMono(Void.class);
+        return withDeadline(timeouts.getWrite(), upstream("delete", onStatus("delete", client.delete()
+                        .uri(uriBuilder -> uriBuilder.path("/invoices/{id}").build(id))
+                        .retrieve())
+                        .bodyToMono(Void.class)))
+                .doOnSuccess(ignored -> {
+                    cache.evict(id);
+                    aggregator.remove(id);
+                    evictRevalidation(id);
+                });
+    }
+
+    private void evictRevalidation(Long id) {
+        revalidationCache.evict(key(id));
+        revalidationCache.evict(ALL);
+    }
+
+    private <T> Mono<T> withDeadline(Deadline deadline, Mono<T> call) {
+        return deadline.within(call).onErrorMap(TimeoutException.class, this::deadlineExceeded);
+    }
+
+    private <T> Flux<T> withDeadline(Deadline deadline, Flux<T> call) {
+        return deadline.within(call).onErrorMap(TimeoutException.class, this::deadlineExceeded);
+    }
+
+    private GatewayTimeoutException deadlineExceeded(TimeoutException exception) {
+        return new GatewayTimeoutException("External Service did not answer within the deadline", GATEWAY_TIMEOUT.value());
+    }
+
+    /**
+     * Times the call inside the circuit breaker, and the breaker inside the concurrency limiter: calls the limiter
+     * rejects never reach the breaker, so a burst of local requests cannot open it while the upstream is healthy.
+     */
+    private <T> Mono<T> upstream(String operation, Mono<T> call) {
+        Mono<T> guarded = metrics.timed(operation, call.onErrorMap(this::isResponseTimeout, throwable -> responseTimeout(operation)))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker));
+        return limiter.limit(guarded).onErrorMap(CallNotPermittedException.class, this::circuitOpen);
+    }
+
+    /**
+     * Like {@link #upstream(String, Mono)}, but the breaker records a streamed call when its first element arrives,
+     * so a long listing does not count as a slow call.
+     */
+    private <T> Flux<T> upstream(String operation, Flux<T> call) {
+        Flux<T> guarded = StreamingCircuitBreaker.untilFirstElement(circuitBreaker,
+                metrics.timed(operation, call.onErrorMap(this::isResponseTimeout, throwable -> responseTimeout(operation))));
+        return limiter.limit(guarded).onErrorMap(CallNotPermittedException.class, this::circuitOpen);
+    }
+
+    private ServiceUnavailableException circuitOpen(CallNotPermittedException exception) {
+        return new ServiceUnavailableException("External Service unavailable, circuit breaker is open", SERVICE_UNAVAILABLE.value());
+    }
+
+    private boolean isResponseTimeout(Throwable throwable) {
+        for (Throwable cause = Exceptions.unwrap(throwable); cause != null; cause = cause.getCause()) {
+            if (cause instanceof ReadTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isConnectionClosed(Throwable throwable) {
+        for (Throwable cause = Exceptions.unwrap(throwable); cause != null; cause = cause.getCause()) {
+            if (cause instanceof PrematureCloseException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ServerErrorException connectionClosed(String operation) {
+        metrics.serverError(operation);
+        return new ServerErrorException("Upstream connection closed", BAD_GATEWAY.value());
+    }
+
+    private ServerErrorException responseTimeout(String operation) {
+        metrics.serverError(operation);
+        return new ServerErrorException("Upstream response timeout", GATEWAY_TIMEOUT.value());
+    }
+
+    private ResponseSpec onStatus(String operation, ResponseSpec spec) {
+        return spec.onStatus(HttpStatus::is4xxClientError, response -> clientError(operation, response))
+                .onStatus(HttpStatus::is5xxServerError, response -> serverError(operation, response));
+    }
+
+    private Mono<Throwable> clientError(String operation, ClientResponse response) {
+        metrics.clientError(operation);
+        return Mono.error(new ClientErrorException("Client error", response.rawStatusCode()));
+    }
+
+    private Mono<Throwable> serverError(String operation, ClientResponse response) {
+        metrics.serverError(operation);
+        return Mono.error(new ServerErrorException("Server error", response.rawStatusCode()));
+    }
+
+    /**
+     * Every call builds its retry once, which is what counts the call towards the retry budget. The budget is only
+     * asked for the retries the backoff would actually make, so a call exhausting its attempts takes no extra token,
+     * and a retry it refuses is answered like exhausted retries.
+     */
+    private Retry retry(String operation, boolean transientErrors) {
+        retryBudget.deposit(operation);
+        RetryBackoffSpec backoff = Retry.backoff(3, Duration.ofSeconds(2))
+                .jitter(0.5)
+                .transientErrors(transientErrors)
+                .filter(ServerErrorException.class::isInstance)
+                .doBeforeRetry(retrySignal -> metrics.retry(operation))
+                .onRetryExhaustedThrow((retryBackoffSpec, retrySignal) -> retriesExhausted(operation));
+        return Retry.from(signals -> backoff.generateCompanion(signals.<Retry.RetrySignal>handle((signal, sink) -> {
+            long retries = transientErrors ? signal.totalRetriesInARow() : signal.totalRetries();
+            if (signal.failure() instanceof ServerErrorException && retries < backoff.maxAttempts && !retryBudget.tryRetry(operation)) {
+                sink.error(retriesExhausted(operation));
+            } else {
+                sink.next(signal);
+            }
+        })));
+    }
+
+    /**
+     * Like {@link #retry(String, boolean)}, as long as nothing was delivered yet.
+     */
+    private Retry retryUntilDelivered(String operation, AtomicBoolean delivered) {
+        Retry retry = retry(operation, false);
+        return Retry.from(signals -> retry.generateCompanion(signals.<Retry.RetrySignal>handle((signal, sink) -> {
+            if (delivered.get()) {
+                sink.error(signal.failure());
+            } else {
+                sink.next(signal);
+            }
+        })));
+    }
+
+    private ServiceUnavailableException retriesExhausted(String operation) {
+        metrics.retriesExhausted(operation);
+        return new ServiceUnavailableException("External Service failed to process after max retries", SERVICE_UNAVAILABLE.value());
     }
 
 }
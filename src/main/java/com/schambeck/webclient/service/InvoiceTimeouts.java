@@ -0,0 +1,20 @@
+package com.schambeck.webclient.service;
+
+import com.schambeck.webclient.reactive.Deadline;
+import lombok.Value;
+
+/**
+ * Deadlines of the idempotent reads (findAll, findById) and of the writes (create, update, delete).
+ */
+@Value
+public class InvoiceTimeouts {
+
+    Deadline read;
+
+    Deadline write;
+
+    public static InvoiceTimeouts none() {
+        return new InvoiceTimeouts(Deadline.none(), Deadline.none());
+    }
+
+}
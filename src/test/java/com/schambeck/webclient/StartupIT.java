@@ -0,0 +1,109 @@
+package com.schambeck.webclient;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Starts the application in a separate JVM, once on the default servlet stack and once with the
+ * {@code fast} profile, and reports the startup time and the resident set size once it is ready.
+ */
+@Tag("integration")
+class StartupIT {
+
+    private static final Pattern STARTED = Pattern.compile("Started WebclientApplication in ([\\d.]+) seconds");
+
+    private static final class Startup {
+        double seconds;
+        long rssKb;
+        final List<String> log = new ArrayList<>();
+    }
+
+    private Startup start(String profiles) throws Exception {
+        List<String> command = List.of(
+                Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", applicationClassPath(),
+                "-Dspring.profiles.active=" + profiles,
+                "-Dspring.devtools.restart.enabled=false",
+                "-Dapp.rest-app.base-url=http://localhost:8080",
+                "-Dserver.port=0",
+                WebclientApplication.class.getName());
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        Startup startup = new Startup();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                startup.log.add(line);
+                Matcher matcher = STARTED.matcher(line);
+                if (matcher.find()) {
+                    startup.seconds = Double.parseDouble(matcher.group(1));
+                    startup.rssKb = rssKb(process.pid());
+                    break;
+                }
+            }
+        } finally {
+            process.destroy();
+            process.waitFor(10, TimeUnit.SECONDS);
+        }
+        assertThat(startup.seconds).as("started, log: %s", startup.log).isPositive();
+        System.out.printf("startup profiles=%s time=%.3fs rss=%dkB%n", profiles, startup.seconds, startup.rssKb);
+        return startup;
+    }
+
+    /**
+     * The test class path without the test classes, whose configurations would be picked up by the component scan.
+     */
+    private static String applicationClassPath() {
+        return Arrays.stream(System.getProperty("java.class.path").split(File.pathSeparator))
+                .filter(entry -> !entry.endsWith("test-classes"))
+                .collect(Collectors.joining(File.pathSeparator));
+    }
+
+    /**
+     * Resident set size from procfs, -1 where it is not available.
+     */
+    private static long rssKb(long pid) throws IOException {
+        Path status = Paths.get("/proc", String.valueOf(pid), "status");
+        if (!Files.exists(status)) {
+            return -1;
+        }
+        return Files.readAllLines(status).stream()
+                .filter(line -> line.startsWith("VmRSS:"))
+                .mapToLong(line -> Long.parseLong(line.replaceAll("\\D", "")))
+                .findFirst()
+                .orElse(-1);
+    }
+
+    @Test
+    void startup_whenServletStack_thenStartTomcat() throws Exception {
+        Startup startup = start("local");
+
+        assertThat(startup.log).anyMatch(line -> line.contains("Tomcat started"));
+    }
+
+    @Test
+    void startup_whenFastProfile_thenStartNettyOnly() throws Exception {
+        Startup startup = start("local,fast");
+
+        assertThat(startup.log).anyMatch(line -> line.contains("Netty started"));
+        assertThat(startup.log).noneMatch(line -> line.contains("Tomcat"));
+    }
+
+}
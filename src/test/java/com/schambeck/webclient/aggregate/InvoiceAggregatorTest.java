@@ -0,0 +1,150 @@
+package com.schambeck.webclient.aggregate;
+
+import com.schambeck.webclient.domain.Invoice;
+import com.schambeck.webclient.domain.InvoiceAggregate;
+import com.schambeck.webclient.domain.InvoiceAggregates;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("unit")
+class InvoiceAggregatorTest {
+
+    private AtomicLong ticker;
+    private InvoiceAggregator aggregator;
+
+    @BeforeEach
+    void setup() {
+        ticker = new AtomicLong();
+        aggregator = new InvoiceAggregator(Duration.ofMinutes(1), ticker::get);
+    }
+
+    private static Invoice createInvoice(Long id, String issued, double total) {
+        return new Invoice(id, LocalDate.parse(issued), BigDecimal.valueOf(total));
+    }
+
+    private static void assertAggregate(InvoiceAggregate aggregate, String period, long count, double total, double min, double max) {
+        assertThat(aggregate.getPeriod()).isEqualTo(period);
+        assertThat(aggregate.getCount()).isEqualTo(count);
+        assertThat(aggregate.getTotal()).isEqualByComparingTo(BigDecimal.valueOf(total));
+        assertThat(aggregate.getMin()).isEqualByComparingTo(BigDecimal.valueOf(min));
+        assertThat(aggregate.getMax()).isEqualByComparingTo(BigDecimal.valueOf(max));
+    }
+
+    private void load(Invoice... invoices) {
+        aggregator.load(Flux.just(invoices)).block();
+    }
+
+    @Test
+    void query_whenDays_thenAggregatePerDayAndRange() {
+        load(createInvoice(1L, "2021-02-01", 1000),
+                createInvoice(2L, "2021-02-01", 3000),
+                createInvoice(3L, "2021-02-02", 2000));
+
+        InvoiceAggregates aggregates = aggregator.query(Granularity.DAY, null, null);
+
+        assertAggregate(aggregates.getRange(), "../..", 3, 6000, 1000, 3000);
+        assertThat(aggregates.getPeriods()).hasSize(2);
+        assertAggregate(aggregates.getPeriods().get(0), "2021-02-01", 2, 4000, 1000, 3000);
+        assertAggregate(aggregates.getPeriods().get(1), "2021-02-02", 1, 2000, 2000, 2000);
+    }
+
+    @Test
+    void query_whenMonthsWithinRange_thenMergeDays() {
+        load(createInvoice(1L, "2021-01-31", 100),
+                createInvoice(2L, "2021-02-01", 1000),
+                createInvoice(3L, "2021-02-28", 2000),
+                createInvoice(4L, "2021-03-01", 3000));
+
+        InvoiceAggregates aggregates = aggregator.query(Granularity.MONTH, LocalDate.parse("2021-02-01"), LocalDate.parse("2021-03-01"));
+
+        assertAggregate(aggregates.getRange(), "2021-02-01/2021-03-01", 3, 6000, 1000, 3000);
+        assertThat(aggregates.getPeriods()).hasSize(2);
+        assertAggregate(aggregates.getPeriods().get(0), "2021-02", 2, 3000, 1000, 2000);
+        assertAggregate(aggregates.getPeriods().get(1), "2021-03", 1, 3000, 3000, 3000);
+    }
+
+    @Test
+    void put_whenUpdated_thenReplacePreviousValues() {
+        load(createInvoice(1L, "2021-02-01", 1000),
+                createInvoice(2L, "2021-02-01", 3000));
+
+        aggregator.put(createInvoice(2L, "2021-02-02", 500));
+
+        InvoiceAggregates aggregates = aggregator.query(Granularity.DAY, null, null);
+        assertAggregate(aggregates.getRange(), "../..", 2, 1500, 500, 1000);
+        assertAggregate(aggregates.getPeriods().get(0), "2021-02-01", 1, 1000, 1000, 1000);
+        assertAggregate(aggregates.getPeriods().get(1), "2021-02-02", 1, 500, 500, 500);
+    }
+
+    @Test
+    void remove_whenLastOfDay_thenDropDay() {
+        load(createInvoice(1L, "2021-02-01", 1000),
+                createInvoice(2L, "2021-02-02", 2000));
+
+        aggregator.remove(2L);
+        aggregator.remove(99L);
+
+        InvoiceAggregates aggregates = aggregator.query(Granularity.DAY, null, null);
+        assertThat(aggregates.getPeriods()).hasSize(1);
+        assertAggregate(aggregates.getRange(), "../..", 1, 1000, 1000, 1000);
+    }
+
+    @Test
+    void remove_whenMinOrMaxOfDay_thenRecomputeFromRemaining() {
+        load(createInvoice(1L, "2021-02-01", 1000),
+                createInvoice(2L, "2021-02-01", 3000),
+                createInvoice(3L, "2021-02-01", 2000),
+                createInvoice(null, "2021-02-01", 2500));
+
+        aggregator.remove(2L);
+        assertAggregate(aggregator.query(Granularity.DAY, null, null).getRange(), "../..", 3, 5500, 1000, 2500);
+
+        aggregator.put(createInvoice(1L, "2021-02-01", 4000));
+        assertAggregate(aggregator.query(Granularity.DAY, null, null).getRange(), "../..", 3, 8500, 2000, 4000);
+    }
+
+    @Test
+    void put_whenNeverLoaded_thenKeepNothing() {
+        aggregator.put(createInvoice(1L, "2021-02-01", 1000));
+        aggregator.remove(1L);
+        aggregator.put(createInvoice(2L, "2021-02-02", 2000));
+
+        assertThat(aggregator.query(Granularity.DAY, null, null).getPeriods()).isEmpty();
+        assertThat(aggregator.isFresh()).isFalse();
+    }
+
+    @Test
+    void isFresh_whenMaxAgePassed_thenStale() {
+        assertThat(aggregator.isFresh()).isFalse();
+        load(createInvoice(1L, "2021-02-01", 1000));
+        assertThat(aggregator.isFresh()).isTrue();
+
+        ticker.addAndGet(Duration.ofMinutes(1).toNanos());
+
+        assertThat(aggregator.isFresh()).isFalse();
+    }
+
+    @Test
+    void load_whenChangedWhileLoading_thenStale() {
+        Sinks.Many<Invoice> invoices = Sinks.many().unicast().onBackpressureBuffer();
+        aggregator.load(invoices.asFlux()).subscribe();
+        invoices.tryEmitNext(createInvoice(1L, "2021-02-01", 1000));
+
+        aggregator.put(createInvoice(2L, "2021-02-02", 2000));
+        invoices.tryEmitComplete();
+
+        assertThat(aggregator.isFresh()).isFalse();
+        assertThat(aggregator.query(Granularity.DAY, null, null).getRange().getCount()).isEqualTo(1);
+    }
+
+}
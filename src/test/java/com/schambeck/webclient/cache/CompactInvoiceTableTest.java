@@ -0,0 +1,110 @@
+package com.schambeck.webclient.cache;
+
+import com.schambeck.webclient.domain.Invoice;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("unit")
+class CompactInvoiceTableTest {
+
+    private static final LocalDate ISSUED = LocalDate.parse("2021-02-01");
+
+    private long[] owned;
+
+    private static Invoice createInvoice(long id) {
+        return new Invoice(id, ISSUED.plusDays(id % 30), BigDecimal.valueOf(id * 1005, 2));
+    }
+
+    private static void put(CompactInvoiceTable table, Invoice invoice) {
+        int slot = table.find(invoice.getId());
+        table.set(slot < 0 ? table.insert(invoice.getId()) : slot, invoice);
+    }
+
+    private static Invoice remove(CompactInvoiceTable table, long id) {
+        int slot = table.find(id);
+        if (slot < 0) {
+            return null;
+        }
+        Invoice previous = table.get(slot);
+        table.delete(slot);
+        return previous;
+    }
+
+    @Test
+    void delete_whenGrownAndPartlyDeleted_thenKeepOtherValues() {
+        CompactInvoiceTable table = CompactInvoiceTable.growable();
+        for (long id = 1; id <= 1000; id++) {
+            put(table, createInvoice(id));
+        }
+        for (long id = 2; id <= 1000; id += 2) {
+            assertThat(remove(table, id)).usingRecursiveComparison().isEqualTo(createInvoice(id));
+        }
+
+        assertThat(table.size()).isEqualTo(500);
+        for (long id = 1; id <= 1000; id++) {
+            Invoice previous = remove(table, id);
+            if (id % 2 == 0) {
+                assertThat(previous).isNull();
+            } else {
+                assertThat(previous).usingRecursiveComparison().isEqualTo(createInvoice(id));
+            }
+        }
+        assertThat(table.size()).isZero();
+    }
+
+    @Test
+    void delete_whenFixed_thenMoveOwnerValuesAlong() {
+        CompactInvoiceTable table = CompactInvoiceTable.fixed(100, (from, to) -> owned[to] = owned[from]);
+        owned = new long[table.capacity()];
+        for (long id = 1; id <= 100; id++) {
+            int slot = table.insert(id);
+            table.set(slot, createInvoice(id));
+            owned[slot] = id;
+        }
+        for (long id = 1; id <= 100; id += 3) {
+            table.delete(table.find(id));
+        }
+
+        for (long id = 1; id <= 100; id++) {
+            int slot = table.find(id);
+            if (id % 3 == 1) {
+                assertThat(slot).isNegative();
+            } else {
+                assertThat(owned[slot]).isEqualTo(id);
+            }
+        }
+    }
+
+    @Test
+    void set_whenValuesDoNotFit_thenKeepAsObjects() {
+        CompactInvoiceTable table = CompactInvoiceTable.growable();
+        Invoice huge = new Invoice(1L, ISSUED, new BigDecimal("123456789012345678901234567890.55"));
+        Invoice farOff = new Invoice(2L, LocalDate.MAX, BigDecimal.ONE);
+        Invoice undated = new Invoice(3L, null, BigDecimal.TEN);
+        put(table, huge);
+        put(table, farOff);
+        put(table, undated);
+
+        assertThat(CompactInvoiceTable.isStorable(Long.MIN_VALUE)).isFalse();
+        assertThat(remove(table, 1L)).usingRecursiveComparison().isEqualTo(huge);
+        assertThat(remove(table, 2L)).usingRecursiveComparison().isEqualTo(farOff);
+        assertThat(remove(table, 3L)).usingRecursiveComparison().isEqualTo(undated);
+        assertThat(table.size()).isZero();
+    }
+
+    @Test
+    void set_whenReplaced_thenKeepLatestValues() {
+        CompactInvoiceTable table = CompactInvoiceTable.growable();
+        put(table, new Invoice(1L, ISSUED, new BigDecimal("123456789012345678901234567890")));
+        put(table, new Invoice(1L, ISSUED, BigDecimal.TEN));
+
+        assertThat(table.size()).isEqualTo(1);
+        assertThat(remove(table, 1L)).usingRecursiveComparison().isEqualTo(new Invoice(1L, ISSUED, BigDecimal.TEN));
+    }
+
+}
@@ -0,0 +1,192 @@
+package com.schambeck.webclient.cache;
+
+import com.schambeck.webclient.domain.Invoice;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("unit")
+class InvoiceCacheTest {
+
+    private MeterRegistry registry;
+    private AtomicLong ticker;
+
+    @BeforeEach
+    void setup() {
+        registry = new SimpleMeterRegistry();
+        ticker = new AtomicLong();
+    }
+
+    private Invoice createInvoice(Long id, String issued, double total) {
+        return new Invoice(id, LocalDate.parse(issued), BigDecimal.valueOf(total));
+    }
+
+    private double count(String name, String policy, String result) {
+        return registry.get(name).tag("policy", policy).tag("result", result).counter().count();
+    }
+
+    private double evictions(String policy) {
+        return registry.get("cache.evictions").tag("policy", policy).counter().count();
+    }
+
+    @Test
+    void lruHitAndMiss() {
+        InvoiceCache cache = new LruInvoiceCache(registry, 10, Duration.ofMinutes(1), ticker::get);
+        cache.put(createInvoice(1L, "2021-02-01", 1000));
+
+        assertThat(cache.get(1L)).contains(createInvoice(1L, "2021-02-01", 1000));
+        assertThat(cache.get(2L)).isEmpty();
+        assertThat(count("cache.gets", "lru", "hit")).isEqualTo(1);
+        assertThat(count("cache.gets", "lru", "miss")).isEqualTo(1);
+    }
+
+    @Test
+    void lruEvictsLeastRecentlyUsed() {
+        InvoiceCache cache = new LruInvoiceCache(registry, 2, Duration.ofMinutes(1), ticker::get);
+        cache.put(createInvoice(1L, "2021-02-01", 1000));
+        cache.put(createInvoice(2L, "2021-02-02", 2000));
+        cache.get(1L);
+        cache.put(createInvoice(3L, "2021-02-03", 3000));
+
+        assertThat(cache.get(1L)).isPresent();
+        assertThat(cache.get(2L)).isEmpty();
+        assertThat(cache.get(3L)).isPresent();
+        assertThat(evictions("lru")).isEqualTo(1);
+    }
+
+    @Test
+    void lruExpiresAfterTimeToLive() {
+        InvoiceCache cache = new LruInvoiceCache(registry, 10, Duration.ofSeconds(30), ticker::get);
+        cache.put(createInvoice(1L, "2021-02-01", 1000));
+        ticker.addAndGet(Duration.ofSeconds(30).toNanos());
+
+        assertThat(cache.get(1L)).isEmpty();
+        assertThat(evictions("lru")).isEqualTo(1);
+    }
+
+    @Test
+    void lruEvict() {
+        InvoiceCache cache = new LruInvoiceCache(registry, 10, Duration.ofMinutes(1), ticker::get);
+        cache.put(createInvoice(1L, "2021-02-01", 1000));
+        cache.evict(1L);
+
+        assertThat(cache.get(1L)).isEmpty();
+        assertThat(evictions("lru")).isZero();
+    }
+
+    @Test
+    void tinyLfuHitAndMiss() {
+        InvoiceCache cache = new TinyLfuInvoiceCache(registry, 10, Duration.ofMinutes(1), ticker::get);
+        cache.put(createInvoice(1L, "2021-02-01", 1000));
+
+        assertThat(cache.get(1L)).contains(createInvoice(1L, "2021-02-01", 1000));
+        assertThat(cache.get(2L)).isEmpty();
+        assertThat(count("cache.gets", "tiny_lfu", "hit")).isEqualTo(1);
+        assertThat(count("cache.gets", "tiny_lfu", "miss")).isEqualTo(1);
+    }
+
+    @Test
+    void tinyLfuExpiresAfterTimeToLive() {
+        TinyLfuInvoiceCache cache = new TinyLfuInvoiceCache(registry, 10, Duration.ofSeconds(30), ticker::get);
+        cache.put(createInvoice(1L, "2021-02-01", 1000));
+        ticker.addAndGet(Duration.ofSeconds(30).toNanos());
+        cache.cleanUp();
+
+        assertThat(cache.get(1L)).isEmpty();
+        assertThat(evictions("tiny_lfu")).isEqualTo(1);
+    }
+
+    @Test
+    void compactHitAndMiss() {
+        InvoiceCache cache = new CompactInvoiceCache(registry, 10, Duration.ofMinutes(1), ticker::get);
+        cache.put(new Invoice(1L, LocalDate.parse("2021-02-01"), new BigDecimal("1000.50")));
+
+        Invoice invoice = cache.get(1L).orElseThrow();
+        assertThat(invoice.getIssued()).isEqualTo("2021-02-01");
+        assertThat(invoice.getTotal()).isEqualTo(new BigDecimal("1000.50"));
+        assertThat(cache.get(2L)).isEmpty();
+        assertThat(count("cache.gets", "compact", "hit")).isEqualTo(1);
+        assertThat(count("cache.gets", "compact", "miss")).isEqualTo(1);
+    }
+
+    @Test
+    void compactKeepsOversizedValues() {
+        InvoiceCache cache = new CompactInvoiceCache(registry, 10, Duration.ofMinutes(1), ticker::get);
+        BigDecimal huge = new BigDecimal("123456789012345678901234567890.12");
+        cache.put(new Invoice(1L, LocalDate.parse("2021-02-01"), huge));
+        cache.put(new Invoice(2L, LocalDate.MAX, BigDecimal.ONE));
+
+        assertThat(cache.get(1L).orElseThrow().getTotal()).isEqualTo(huge);
+        assertThat(cache.get(2L).orElseThrow().getIssued()).isEqualTo(LocalDate.MAX);
+
+        cache.put(new Invoice(1L, LocalDate.parse("2021-02-01"), BigDecimal.TEN));
+        assertThat(cache.get(1L).orElseThrow().getTotal()).isEqualTo(BigDecimal.TEN);
+    }
+
+    @Test
+    void compactEvictsNotRecentlyRead() {
+        InvoiceCache cache = new CompactInvoiceCache(registry, 2, Duration.ofMinutes(1), ticker::get);
+        cache.put(createInvoice(1L, "2021-02-01", 1000));
+        cache.put(createInvoice(2L, "2021-02-02", 2000));
+        cache.get(1L);
+        cache.put(createInvoice(3L, "2021-02-03", 3000));
+
+        assertThat(cache.get(1L)).isPresent();
+        assertThat(cache.get(2L)).isEmpty();
+        assertThat(cache.get(3L)).isPresent();
+        assertThat(evictions("compact")).isEqualTo(1);
+    }
+
+    @Test
+    void compactExpiresAfterTimeToLive() {
+        InvoiceCache cache = new CompactInvoiceCache(registry, 10, Duration.ofSeconds(30), ticker::get);
+        cache.put(createInvoice(1L, "2021-02-01", 1000));
+        ticker.addAndGet(Duration.ofSeconds(30).toNanos());
+
+        assertThat(cache.get(1L)).isEmpty();
+        assertThat(evictions("compact")).isEqualTo(1);
+    }
+
+    @Test
+    void compactMatchesMapUnderChurn() {
+        CompactInvoiceCache cache = new CompactInvoiceCache(registry, 1000, Duration.ofMinutes(1), ticker::get);
+        Map<Long, Invoice> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            long id = random.nextInt(900);
+            if (random.nextInt(3) == 0) {
+                cache.evict(id);
+                expected.remove(id);
+            } else {
+                Invoice invoice = createInvoice(id, "2021-02-01", random.nextInt(100_000) / 100.0);
+                cache.put(invoice);
+                expected.put(id, invoice);
+            }
+        }
+
+        assertThat(cache.size()).isEqualTo(expected.size());
+        expected.forEach((id, invoice) -> assertThat(cache.get(id).orElseThrow().getTotal()).isEqualTo(invoice.getTotal()));
+        assertThat(evictions("compact")).isZero();
+    }
+
+    @Test
+    void noOp() {
+        InvoiceCache cache = new NoOpInvoiceCache();
+        cache.put(createInvoice(1L, "2021-02-01", 1000));
+
+        assertThat(cache.get(1L)).isEmpty();
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.schambeck.webclient.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("unit")
+class RestTemplateConfigTest {
+
+    private static final Tags POOL = Tags.of("httpclient", RestTemplateConfig.CONNECTION_POOL_NAME);
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withInitializer(context -> context.getBeanFactory().setConversionService(ApplicationConversionService.getSharedInstance()))
+            .withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+            .withBean(ObjectMapper.class, ObjectMapper::new)
+            .withPropertyValues("app.rest-app.base-url=http://localhost:8081")
+            .withUserConfiguration(RestTemplateConfig.class);
+
+    @Test
+    void createHttpClient_whenCreated_thenPublishPoolMetrics() {
+        contextRunner.withPropertyValues("app.rest-app.rest-template.max-total=20", "app.rest-app.rest-template.max-per-route=10")
+                .run(context -> {
+                    MeterRegistry registry = context.getBean(MeterRegistry.class);
+
+                    assertThat(registry.get("httpcomponents.httpclient.pool.total.max").tags(POOL).gauge().value()).isEqualTo(20);
+                    assertThat(registry.get("httpcomponents.httpclient.pool.route.max.default").tags(POOL).gauge().value()).isEqualTo(10);
+                    assertThat(registry.get("httpcomponents.httpclient.pool.total.connections").tags(POOL).tag("state", "available").gauge()).isNotNull();
+                    assertThat(registry.get("httpcomponents.httpclient.pool.total.connections").tags(POOL).tag("state", "leased").gauge()).isNotNull();
+                    assertThat(registry.get("httpcomponents.httpclient.pool.total.pending").tags(POOL).gauge()).isNotNull();
+                });
+    }
+
+    @Test
+    void createHttpClient_whenRestTemplateDisabled_thenNoPool() {
+        contextRunner.withPropertyValues("app.rest-app.rest-template.enabled=false")
+                .run(context -> assertThat(context.getBean(MeterRegistry.class).find("httpcomponents.httpclient.pool.total.max").gauges()).isEmpty());
+    }
+
+}
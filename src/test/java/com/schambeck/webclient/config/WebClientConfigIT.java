@@ -0,0 +1,149 @@
+package com.schambeck.webclient.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.Protocol;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.zip.GZIPOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("integration")
+class WebClientConfigIT {
+
+    private static final String BODY = "[{\"id\":1,\"issued\":\"2021-02-01\",\"total\":1000}]";
+
+    private MockWebServer mockWebServer;
+    private ApplicationContextRunner contextRunner;
+
+    @BeforeEach
+    void setup() {
+        mockWebServer = new MockWebServer();
+        contextRunner = new ApplicationContextRunner()
+                .withInitializer(context -> context.getBeanFactory().setConversionService(ApplicationConversionService.getSharedInstance()))
+                .withBean(WebClient.Builder.class, WebClient::builder)
+                .withUserConfiguration(WebClientConfig.class);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        mockWebServer.shutdown();
+    }
+
+    private static Buffer gzip(String content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(content.getBytes(UTF_8));
+        }
+        return new Buffer().write(bytes.toByteArray());
+    }
+
+    private static String get(WebClient client) {
+        return client.get().uri("/invoices").retrieve().bodyToMono(String.class).block();
+    }
+
+    @Test
+    void h2c_whenConcurrentRequests_thenMultiplexStreams() throws Exception {
+        mockWebServer.setProtocols(Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE));
+        mockWebServer.start();
+        mockWebServer.enqueue(new MockResponse().setBody(BODY).addHeader("Content-Type", "application/json"));
+        for (int i = 0; i < 10; i++) {
+            mockWebServer.enqueue(new MockResponse().setBody(BODY).addHeader("Content-Type", "application/json")
+                    .setHeadersDelay(200, MILLISECONDS));
+        }
+
+        contextRunner.withPropertyValues("app.rest-app.base-url=" + mockWebServer.url("/"), "app.rest-app.http.protocols=h2c")
+                .run(context -> {
+                    WebClient client = context.getBean(WebClient.class);
+                    assertThat(get(client)).isEqualTo(BODY);
+                    StepVerifier.create(Flux.range(0, 10).flatMap(i -> client.get().uri("/invoices").retrieve().bodyToMono(String.class)))
+                            .expectNextCount(10)
+                            .verifyComplete();
+                });
+
+        // the sequence number restarts at 0 on every new connection, the warm-up request opened the only one
+        int connections = 0;
+        for (int i = 0; i < 11; i++) {
+            if (mockWebServer.takeRequest(1, SECONDS).getSequenceNumber() == 0) {
+                connections++;
+            }
+        }
+        assertThat(connections).isEqualTo(1);
+    }
+
+    @Test
+    void compression_whenEnabled_thenDecompressGzipResponse() throws Exception {
+        mockWebServer.start();
+        mockWebServer.enqueue(new MockResponse().setBody(gzip(BODY))
+                .addHeader("Content-Type", "application/json")
+                .addHeader("Content-Encoding", "gzip"));
+
+        contextRunner.withPropertyValues("app.rest-app.base-url=" + mockWebServer.url("/"))
+                .run(context -> assertThat(get(context.getBean(WebClient.class))).isEqualTo(BODY));
+
+        RecordedRequest request = mockWebServer.takeRequest();
+        assertThat(request.getHeader("Accept-Encoding")).contains("gzip");
+    }
+
+    @Test
+    void compression_whenDisabled_thenNoAcceptEncoding() throws Exception {
+        mockWebServer.start();
+        mockWebServer.enqueue(new MockResponse().setBody(BODY).addHeader("Content-Type", "application/json"));
+
+        contextRunner.withPropertyValues("app.rest-app.base-url=" + mockWebServer.url("/"), "app.rest-app.http.compression=false")
+                .run(context -> assertThat(get(context.getBean(WebClient.class))).isEqualTo(BODY));
+
+        RecordedRequest request = mockWebServer.takeRequest();
+        assertThat(request.getHeader("Accept-Encoding")).isNull();
+    }
+
+    @Test
+    void connectionProvider_whenConnected_thenPublishPoolMetrics() throws Exception {
+        mockWebServer.start();
+        mockWebServer.enqueue(new MockResponse().setBody(BODY).addHeader("Content-Type", "application/json"));
+        // Reactor Netty registers its pool gauges in the global registry, which Boot composes the application's into
+        MeterRegistry registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
+        // pools of the other tests are disposed but their gauges stay registered, only this server's are of interest
+        Tags pool = Tags.of("name", WebClientConfig.CONNECTION_PROVIDER_NAME,
+                "remote.address", mockWebServer.getHostName() + ":" + mockWebServer.getPort());
+        try {
+            contextRunner.withPropertyValues("app.rest-app.base-url=" + mockWebServer.url("/"))
+                    .run(context -> {
+                        assertThat(get(context.getBean(WebClient.class))).isEqualTo(BODY);
+                        assertThat(registry.get("reactor.netty.connection.provider.total.connections")
+                                .tags(pool).gauge().value()).isEqualTo(1);
+                        assertThat(registry.get("reactor.netty.connection.provider.idle.connections")
+                                .tags(pool).gauge()).isNotNull();
+                        assertThat(registry.get("reactor.netty.connection.provider.active.connections")
+                                .tags(pool).gauge()).isNotNull();
+                        assertThat(registry.get("reactor.netty.connection.provider.pending.connections")
+                                .tags(pool).gauge()).isNotNull();
+                    });
+        } finally {
+            Metrics.removeRegistry(registry);
+        }
+    }
+
+}
@@ -0,0 +1,116 @@
+package com.schambeck.webclient.controller;
+
+import com.schambeck.webclient.domain.Invoice;
+import com.schambeck.webclient.domain.InvoiceResult;
+import com.schambeck.webclient.exception.ErrorData;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.QueueDispatcher;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
+
+/**
+ * The whole application on its default runtime, calling a stand-in upstream.
+ */
+@Tag("integration")
+@SpringBootTest(webEnvironment = RANDOM_PORT, properties = "app.rest-app.retry.budget.max-tokens=0")
+class InvoiceControllerApplicationIT {
+
+    private static MockWebServer mockWebServer;
+
+    @Autowired
+    private WebTestClient webClient;
+
+    @BeforeAll
+    static void startUpstream() throws IOException {
+        mockWebServer = new MockWebServer();
+        mockWebServer.start();
+    }
+
+    @AfterAll
+    static void stopUpstream() throws IOException {
+        mockWebServer.shutdown();
+    }
+
+    @DynamicPropertySource
+    static void upstream(DynamicPropertyRegistry registry) {
+        registry.add("app.rest-app.base-url", () -> mockWebServer.url("/").toString());
+    }
+
+    @AfterEach
+    void resetUpstream() {
+        mockWebServer.setDispatcher(new QueueDispatcher());
+    }
+
+    @Test
+    void createAll_whenNdjson_thenCreateEachInvoice() throws InterruptedException {
+        Pattern total = Pattern.compile("\"total\":(\\d+)");
+        mockWebServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                Matcher matcher = total.matcher(request.getBody().readUtf8());
+                long id = matcher.find() ? Long.parseLong(matcher.group(1)) / 1000 : 0;
+                return new MockResponse().setResponseCode(201)
+                        .setBody("{\"id\":" + id + ",\"issued\":\"2021-02-0" + id + "\",\"total\":" + id * 1000 + "}")
+                        .addHeader("Content-Type", "application/json");
+            }
+        });
+
+        webClient.post()
+                .uri("/invoices/bulk")
+                .contentType(APPLICATION_NDJSON)
+                .bodyValue("{\"issued\":\"2021-02-05\",\"total\":5000}\n{\"issued\":\"2021-02-06\",\"total\":6000}\n")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(APPLICATION_NDJSON)
+                .expectBodyList(InvoiceResult.class)
+                .value(results -> assertThat(results).extracting(InvoiceResult::getInvoice).containsExactly(
+                        new Invoice(5L, LocalDate.parse("2021-02-05"), BigDecimal.valueOf(5000)),
+                        new Invoice(6L, LocalDate.parse("2021-02-06"), BigDecimal.valueOf(6000))));
+
+        for (int i = 0; i < 2; i++) {
+            RecordedRequest request = mockWebServer.takeRequest(1, SECONDS);
+            assertThat(request.getMethod()).isEqualTo("POST");
+            assertThat(request.getPath()).isEqualTo("/invoices");
+        }
+    }
+
+    @Test
+    void findById_whenRetryRefusedByBudget_thenServiceUnavailable() throws InterruptedException {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(SERVICE_UNAVAILABLE.value()));
+
+        webClient.get()
+                .uri("/invoices/1")
+                .exchange()
+                .expectStatus().isEqualTo(SERVICE_UNAVAILABLE)
+                .expectBody(ErrorData.class)
+                .value(error -> assertThat(error.getMessage()).isEqualTo("External Service failed to process after max retries"));
+
+        assertThat(mockWebServer.takeRequest(1, SECONDS).getPath()).isEqualTo("/invoices/1");
+        assertThat(mockWebServer.takeRequest(100, MILLISECONDS)).isNull();
+    }
+
+}
@@ -1,7 +1,11 @@
 package com.schambeck.webclient.controller;
 
 import com.schambeck.webclient.exception.ClientErrorException;
+import com.schambeck.webclient.aggregate.Granularity;
 import com.schambeck.webclient.domain.Invoice;
+import com.schambeck.webclient.domain.InvoiceAggregate;
+import com.schambeck.webclient.domain.InvoiceAggregates;
+import com.schambeck.webclient.domain.InvoiceResult;
 import com.schambeck.webclient.service.InvoiceService;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
@@ -17,13 +21,16 @@ import java.time.LocalDate;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
 import static org.springframework.http.MediaType.APPLICATION_NDJSON;
 
 @Tag("unit")
-@WebFluxTest(InvoiceController.class)
+@WebFluxTest({InvoiceController.class, InvoiceBulkController.class})
 class InvoiceControllerIT {
 
     @MockBean
@@ -72,6 +79,34 @@ class InvoiceControllerIT {
                 .value(invoices -> assertInvoice(invoices, 3, 4, "2021-02-04", 4000D));
     }
 
+    @Test
+    void findPage() {
+        when(service.findPage(2L, 2)).thenReturn(Flux.just(createInvoice(3L, "2021-02-03", 3000), createInvoice(4L, "2021-02-04", 4000)));
+        webClient.get()
+                .uri("/invoices?afterId=2&limit=2")
+                .accept(APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Invoice.class)
+                .value(invoices -> assertInvoice(invoices, 0, 3, "2021-02-03", 3000D))
+                .value(invoices -> assertInvoice(invoices, 1, 4, "2021-02-04", 4000D));
+    }
+
+    @Test
+    void aggregate() {
+        InvoiceAggregates aggregates = new InvoiceAggregates(
+                new InvoiceAggregate("2021-02-01/..", 2, BigDecimal.valueOf(3000), BigDecimal.valueOf(1000), BigDecimal.valueOf(2000)),
+                List.of(new InvoiceAggregate("2021-02", 2, BigDecimal.valueOf(3000), BigDecimal.valueOf(1000), BigDecimal.valueOf(2000))));
+        when(service.aggregate(Granularity.MONTH, LocalDate.parse("2021-02-01"), null)).thenReturn(Mono.just(aggregates));
+        webClient.get()
+                .uri("/invoices/aggregates?granularity=MONTH&from=2021-02-01")
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(InvoiceAggregates.class)
+                .value(found -> assertEquals(aggregates, found));
+    }
+
     @Test
     void findById() {
         Invoice payload = createInvoice(1L, "2021-02-01", 1000);
@@ -85,6 +120,25 @@ class InvoiceControllerIT {
                 .value(invoice -> assertInvoice(invoice, 1, "2021-02-01", 1000D));
     }
 
+    @Test
+    void findByIdNotModified() {
+        Invoice payload = createInvoice(1L, "2021-02-01", 1000);
+        when(service.findById(1L)).thenReturn(Mono.just(payload));
+        String eTag = webClient.get()
+                .uri("/invoices/{id}", 1)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists("ETag")
+                .returnResult(Invoice.class)
+                .getResponseHeaders().getETag();
+        webClient.get()
+                .uri("/invoices/{id}", 1)
+                .ifNoneMatch(eTag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+    }
+
     @Test
     void findByIdNotFound() {
         when(service.findById(6L)).thenThrow(new ClientErrorException("Entity 6 not found", NOT_FOUND.value()));
@@ -94,6 +148,25 @@ class InvoiceControllerIT {
                 .expectStatus().is4xxClientError();
     }
 
+    @Test
+    void findAllById() {
+        InvoiceResult[] results = {
+            InvoiceResult.success(1L, 200, createInvoice(1L, "2021-02-01", 1000)),
+            InvoiceResult.failure(6L, 404, "Client error")
+        };
+        when(service.findAllById(any(), anyInt(), eq(true))).thenReturn(Flux.just(results));
+        webClient.post()
+                .uri("/invoices/batch")
+                .contentType(APPLICATION_JSON)
+                .bodyValue(List.of(1L, 6L))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(APPLICATION_NDJSON)
+                .expectBodyList(InvoiceResult.class)
+                .value(found -> assertInvoice(found.get(0).getInvoice(), 1, "2021-02-01", 1000D))
+                .value(found -> assertEquals(404, found.get(1).getStatus()));
+    }
+
     @Test
     void create() {
         Invoice payload = createInvoice(5L, "2021-02-05", 5000);
@@ -110,6 +183,21 @@ class InvoiceControllerIT {
                 .isEqualTo(createInvoice(5L, "2021-02-05", 5000));
     }
 
+    @Test
+    void createAll() {
+        when(service.createAll(any(), anyInt())).thenAnswer(invocation -> invocation.<Flux<Invoice>>getArgument(0)
+                .map(invoice -> InvoiceResult.success(5L, 201, createInvoice(5L, invoice.getIssued().toString(), 5000))));
+        webClient.post()
+                .uri("/invoices/bulk")
+                .contentType(APPLICATION_NDJSON)
+                .bodyValue("{\"issued\":\"2021-02-05\",\"total\":5000}\n")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(APPLICATION_NDJSON)
+                .expectBodyList(InvoiceResult.class)
+                .value(results -> assertInvoice(results.get(0).getInvoice(), 5, "2021-02-05", 5000D));
+    }
+
     @Test
     void update() {
         Invoice payload = createInvoice("2021-02-03", 3000);
@@ -1,6 +1,14 @@
 package com.schambeck.webclient.controller;
 
+import com.schambeck.webclient.aggregate.InvoiceAggregator;
+import com.schambeck.webclient.cache.InvoiceCache;
+import com.schambeck.webclient.cache.NoOpInvoiceCache;
+import com.schambeck.webclient.cache.RevalidationCache;
+import com.schambeck.webclient.reactive.Batching;
+import com.schambeck.webclient.service.InvoiceResilience;
 import com.schambeck.webclient.service.InvoiceServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -31,6 +39,36 @@ class InvoiceControllerSmokeTest {
 		public WebClient createWebClient() {
 			return WebClient.builder().build();
 		}
+
+		@Bean
+		public InvoiceCache createInvoiceCache() {
+			return new NoOpInvoiceCache();
+		}
+
+		@Bean
+		public RevalidationCache createRevalidationCache() {
+			return RevalidationCache.disabled();
+		}
+
+		@Bean
+		public InvoiceAggregator createInvoiceAggregator() {
+			return InvoiceAggregator.disabled();
+		}
+
+		@Bean
+		public InvoiceResilience createInvoiceResilience() {
+			return InvoiceResilience.defaults();
+		}
+
+		@Bean
+		public Batching createInvoiceBatching() {
+			return Batching.disabled();
+		}
+
+		@Bean
+		public MeterRegistry createMeterRegistry() {
+			return new SimpleMeterRegistry();
+		}
 	}
 
 }
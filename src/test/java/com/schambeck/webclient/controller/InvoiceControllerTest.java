@@ -2,31 +2,40 @@ package com.schambeck.webclient.controller;
 
 import com.schambeck.webclient.exception.ClientErrorException;
 import com.schambeck.webclient.domain.Invoice;
+import com.schambeck.webclient.domain.InvoiceResult;
 import com.schambeck.webclient.service.InvoiceService;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.ResponseEntity;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 
 @Tag("unit")
-@WebFluxTest(InvoiceController.class)
+@WebFluxTest({InvoiceController.class, InvoiceBulkController.class})
 class InvoiceControllerTest {
 
     @Autowired
     private InvoiceController controller;
 
+    @Autowired
+    private InvoiceBulkController bulkController;
+
     @MockBean
     private InvoiceService service;
 
@@ -53,7 +62,7 @@ class InvoiceControllerTest {
             createInvoice(4L, "2021-02-04", 4000)
         };
         when(service.findAll()).thenReturn(Flux.just(allInvoices));
-        Flux<Invoice> found = controller.findAll();
+        Flux<Invoice> found = controller.findAll(null, null, null, null);
         StepVerifier.create(found)
                 .expectNextMatches(invoices -> assertInvoice(invoices, 1, "2021-02-01", 1000))
                 .expectNextMatches(invoices -> assertInvoice(invoices, 2, "2021-02-02", 2000))
@@ -62,11 +71,27 @@ class InvoiceControllerTest {
                 .verifyComplete();
     }
 
+    @Test
+    void findAllIssuedBetween() {
+        Invoice[] allInvoices = {
+            createInvoice(1L, "2021-02-01", 1000),
+            createInvoice(2L, "2021-02-02", 2000),
+            createInvoice(3L, "2021-02-03", 3000),
+            createInvoice(4L, "2021-02-04", 4000)
+        };
+        when(service.findAll()).thenReturn(Flux.just(allInvoices));
+        Flux<Invoice> found = controller.findAll(LocalDate.parse("2021-02-02"), LocalDate.parse("2021-02-03"), null, null);
+        StepVerifier.create(found)
+                .expectNextMatches(invoices -> assertInvoice(invoices, 2, "2021-02-02", 2000))
+                .expectNextMatches(invoices -> assertInvoice(invoices, 3, "2021-02-03", 3000))
+                .verifyComplete();
+    }
+
     @Test
     void findById() {
         Invoice payload = createInvoice(1L, "2021-02-01", 1000);
         when(service.findById(1L)).thenReturn(Mono.just(payload));
-        Mono<Invoice> found = controller.findById(1L);
+        Mono<Invoice> found = controller.findById(1L).map(ResponseEntity::getBody);
         StepVerifier.create(found)
                 .expectNextMatches(invoice -> assertInvoice(invoice, 1, "2021-02-01", 1000))
                 .verifyComplete();
@@ -81,6 +106,20 @@ class InvoiceControllerTest {
         assertEquals(actual, expected);
     }
 
+    @Test
+    void findAllById() {
+        InvoiceResult[] results = {
+            InvoiceResult.success(1L, 200, createInvoice(1L, "2021-02-01", 1000)),
+            InvoiceResult.failure(6L, 404, "Client error")
+        };
+        when(service.findAllById(any(), anyInt(), eq(false))).thenReturn(Flux.just(results));
+        Flux<InvoiceResult> found = controller.findAllById(List.of(1L, 6L), false);
+        StepVerifier.create(found)
+                .expectNextMatches(result -> assertInvoice(result.getInvoice(), 1, "2021-02-01", 1000))
+                .expectNextMatches(result -> result.getId() == 6L && result.getStatus() == 404)
+                .verifyComplete();
+    }
+
     @Test
     void create() {
         Invoice payload = createInvoice(5L, "2021-02-05", 5000);
@@ -91,6 +130,16 @@ class InvoiceControllerTest {
                 .verifyComplete();
     }
 
+    @Test
+    void createAll() {
+        Invoice payload = createInvoice("2021-02-05", 5000);
+        Flux<Invoice> invoices = Flux.just(payload);
+        when(service.createAll(eq(invoices), anyInt())).thenReturn(Flux.just(InvoiceResult.success(5L, 201, createInvoice(5L, "2021-02-05", 5000))));
+        StepVerifier.create(bulkController.createAll(invoices))
+                .expectNextMatches(result -> assertInvoice(result.getInvoice(), 5, "2021-02-05", 5000))
+                .verifyComplete();
+    }
+
     @Test
     void update() {
         Invoice updated = createInvoice("2021-02-03", 3000);
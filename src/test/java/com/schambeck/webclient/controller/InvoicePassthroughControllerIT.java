@@ -0,0 +1,71 @@
+package com.schambeck.webclient.controller;
+
+import com.schambeck.webclient.domain.Invoice;
+import com.schambeck.webclient.service.InvoiceService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
+
+@Tag("unit")
+@WebFluxTest(controllers = {InvoiceController.class, InvoicePassthroughController.class},
+        properties = "app.rest-app.passthrough.enabled=true")
+class InvoicePassthroughControllerIT {
+
+    @MockBean
+    private InvoiceService service;
+
+    @Autowired
+    private WebTestClient webClient;
+
+    private DataBuffer buffer(String content) {
+        return DefaultDataBufferFactory.sharedInstance.wrap(content.getBytes(UTF_8));
+    }
+
+    @Test
+    void findAll() {
+        Flux<DataBuffer> upstream = Flux.just(
+                buffer("{\"id\":1,\"issued\":\"2021-02-01\",\"total\":1000}\n{\"id\":2,\"iss"),
+                buffer("ued\":\"2021-02-02\",\"total\":2000}\n"));
+        when(service.findAllRaw()).thenReturn(upstream);
+        webClient.get()
+                .uri("/invoices")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(APPLICATION_NDJSON)
+                .expectBody(String.class)
+                .isEqualTo("{\"id\":1,\"issued\":\"2021-02-01\",\"total\":1000}\n{\"id\":2,\"issued\":\"2021-02-02\",\"total\":2000}\n");
+        verify(service, never()).findAll();
+    }
+
+    @Test
+    void findAllIssuedFrom_whenFiltering_thenDecode() {
+        when(service.findAll()).thenReturn(Flux.just(
+                new Invoice(1L, LocalDate.parse("2021-02-01"), BigDecimal.valueOf(1000)),
+                new Invoice(2L, LocalDate.parse("2021-02-02"), BigDecimal.valueOf(2000))));
+        webClient.get()
+                .uri("/invoices?from=2021-02-02")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Invoice.class)
+                .value(invoices -> assertEquals(1, invoices.size()))
+                .value(invoices -> assertEquals(2L, invoices.get(0).getId()));
+        verify(service, never()).findAllRaw();
+    }
+
+}
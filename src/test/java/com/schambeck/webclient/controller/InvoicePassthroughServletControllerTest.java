@@ -0,0 +1,78 @@
+package com.schambeck.webclient.controller;
+
+import com.schambeck.webclient.exception.ServiceUnavailableException;
+import com.schambeck.webclient.service.InvoiceService;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.io.buffer.NettyDataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import reactor.core.publisher.Flux;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@Tag("unit")
+@WebMvcTest(controllers = InvoicePassthroughServletController.class, properties = "app.rest-app.passthrough.enabled=true")
+class InvoicePassthroughServletControllerTest {
+
+    private final NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(UnpooledByteBufAllocator.DEFAULT);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private InvoiceService service;
+
+    private NettyDataBuffer buffer(String content) {
+        return bufferFactory.wrap(bufferFactory.getByteBufAllocator().buffer().writeBytes(content.getBytes(UTF_8)));
+    }
+
+    @Test
+    void findAll() throws Exception {
+        NettyDataBuffer first = buffer("{\"id\":1,\"issued\":\"2021-02-01\",\"total\":1000}\n{\"id\":2,\"iss");
+        NettyDataBuffer second = buffer("ued\":\"2021-02-02\",\"total\":2000}\n");
+        when(service.findAllRaw()).thenReturn(Flux.just(first, second));
+
+        MvcResult result = mockMvc.perform(get("/invoices").accept(APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(APPLICATION_NDJSON))
+                .andExpect(content().string("{\"id\":1,\"issued\":\"2021-02-01\",\"total\":1000}\n{\"id\":2,\"issued\":\"2021-02-02\",\"total\":2000}\n"));
+        assertEquals(0, first.getNativeBuffer().refCnt());
+        assertEquals(0, second.getNativeBuffer().refCnt());
+    }
+
+    @Test
+    void findAll_whenUpstreamUnavailable_thenServiceUnavailable() throws Exception {
+        when(service.findAllRaw()).thenReturn(Flux.error(
+                new ServiceUnavailableException("External Service failed to process after max retries", SERVICE_UNAVAILABLE.value())));
+
+        MvcResult result = mockMvc.perform(get("/invoices").accept(APPLICATION_NDJSON, APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.message").value("External Service failed to process after max retries"));
+    }
+
+}
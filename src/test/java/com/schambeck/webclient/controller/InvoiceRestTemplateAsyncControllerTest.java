@@ -0,0 +1,92 @@
+package com.schambeck.webclient.controller;
+
+import com.schambeck.webclient.domain.Invoice;
+import com.schambeck.webclient.service.InvoiceRestTemplateAsyncService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@Tag("unit")
+@WebMvcTest(controllers = InvoiceRestTemplateAsyncController.class, properties = "app.rest-app.rest-template.async.enabled=true")
+class InvoiceRestTemplateAsyncControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private InvoiceRestTemplateAsyncService service;
+
+    private Invoice createInvoice(Long id, String issued, double total) {
+        return new Invoice(id, LocalDate.parse(issued), BigDecimal.valueOf(total));
+    }
+
+    @Test
+    void findAll_whenPaged_thenFindPage() throws Exception {
+        when(service.findPage(1L, 1)).thenReturn(CompletableFuture.completedFuture(List.of(createInvoice(2L, "2021-02-02", 2000))));
+
+        MvcResult result = mockMvc.perform(get("/invoices-rest-template").param("afterId", "1").param("limit", "1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(APPLICATION_JSON))
+                .andExpect(jsonPath("$[0].id").value(2));
+        verify(service, never()).findAll();
+    }
+
+    @Test
+    void findAllStreaming() throws Exception {
+        when(service.streamAll()).thenReturn(Flux.just(
+                createInvoice(1L, "2021-02-01", 1000),
+                createInvoice(2L, "2021-02-02", 2000)));
+
+        MvcResult result = mockMvc.perform(get("/invoices-rest-template").accept(APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(APPLICATION_NDJSON))
+                .andExpect(content().string("{\"id\":1,\"issued\":\"2021-02-01\",\"total\":1000.0}\n{\"id\":2,\"issued\":\"2021-02-02\",\"total\":2000.0}\n"));
+        verify(service, never()).findAll();
+    }
+
+    @Test
+    void findAllStreaming_whenPaged_thenStreamPage() throws Exception {
+        when(service.findPage(1L, 1)).thenReturn(CompletableFuture.completedFuture(List.of(createInvoice(2L, "2021-02-02", 2000))));
+
+        MvcResult result = mockMvc.perform(get("/invoices-rest-template").param("afterId", "1").param("limit", "1")
+                        .accept(APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string("{\"id\":2,\"issued\":\"2021-02-02\",\"total\":2000.0}\n"));
+        verify(service, never()).streamAll();
+    }
+
+}
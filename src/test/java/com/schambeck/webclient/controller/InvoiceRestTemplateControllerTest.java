@@ -0,0 +1,76 @@
+package com.schambeck.webclient.controller;
+
+import com.schambeck.webclient.domain.Invoice;
+import com.schambeck.webclient.service.InvoiceRestTemplateService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@Tag("unit")
+@WebMvcTest(InvoiceRestTemplateController.class)
+class InvoiceRestTemplateControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private InvoiceRestTemplateService service;
+
+    private Invoice createInvoice(Long id, String issued, double total) {
+        return new Invoice(id, LocalDate.parse(issued), BigDecimal.valueOf(total));
+    }
+
+    @Test
+    void findAll() throws Exception {
+        when(service.findAll()).thenReturn(List.of(createInvoice(1L, "2021-02-01", 1000)));
+
+        mockMvc.perform(get("/invoices-rest-template"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(APPLICATION_JSON))
+                .andExpect(jsonPath("$[0].id").value(1));
+        verify(service, never()).streamAll();
+    }
+
+    @Test
+    void findAllStreaming() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        when(service.streamAll()).thenReturn(Stream.of(
+                createInvoice(1L, "2021-02-01", 1000),
+                createInvoice(2L, "2021-02-02", 2000)).onClose(() -> closed.set(true)));
+
+        MvcResult result = mockMvc.perform(get("/invoices-rest-template").accept(APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(APPLICATION_NDJSON))
+                .andExpect(content().string("{\"id\":1,\"issued\":\"2021-02-01\",\"total\":1000.0}\n{\"id\":2,\"issued\":\"2021-02-02\",\"total\":2000.0}\n"));
+        assertTrue(closed.get());
+        verify(service, never()).findAll();
+    }
+
+}
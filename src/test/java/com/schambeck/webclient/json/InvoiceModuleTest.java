@@ -0,0 +1,73 @@
+package com.schambeck.webclient.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.schambeck.webclient.domain.Invoice;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.fasterxml.jackson.databind.DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES;
+import static com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS_TIMESTAMPS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Tag("unit")
+class InvoiceModuleTest {
+
+    private ObjectMapper reflective;
+    private ObjectMapper mapper;
+
+    @BeforeEach
+    void setup() {
+        reflective = new ObjectMapper();
+        reflective.registerModule(new JavaTimeModule());
+        reflective.disable(WRITE_DATES_AS_TIMESTAMPS);
+        reflective.disable(FAIL_ON_UNKNOWN_PROPERTIES);
+        mapper = reflective.copy().registerModule(new InvoiceModule());
+    }
+
+    private static List<Invoice> invoices() {
+        return Arrays.asList(
+                new Invoice(1L, LocalDate.parse("2021-02-01"), BigDecimal.valueOf(1000)),
+                new Invoice(2L, LocalDate.parse("2021-12-31"), new BigDecimal("1234.50")),
+                new Invoice(null, null, null));
+    }
+
+    @Test
+    void serialize_whenInvoice_thenSameJsonAsReflective() throws Exception {
+        for (Invoice invoice : invoices()) {
+            assertThat(mapper.writeValueAsString(invoice)).isEqualTo(reflective.writeValueAsString(invoice));
+        }
+    }
+
+    @Test
+    void deserialize_whenInvoiceJson_thenSameInvoiceAsReflective() throws Exception {
+        for (Invoice invoice : invoices()) {
+            byte[] json = reflective.writeValueAsBytes(invoice);
+            assertThat(mapper.readValue(json, Invoice.class)).usingRecursiveComparison().isEqualTo(invoice);
+        }
+    }
+
+    @Test
+    void deserialize_whenLenientJson_thenCoerceLikeReflective() throws Exception {
+        String json = "{\"total\":\"10.5\",\"extra\":{\"nested\":[1,2]},\"issued\":[2021,2,1],\"id\":\"7\"}";
+
+        Invoice invoice = mapper.readValue(json, Invoice.class);
+
+        assertThat(invoice).usingRecursiveComparison().isEqualTo(reflective.readValue(json, Invoice.class));
+    }
+
+    @Test
+    void deserialize_whenInvalidDate_thenFail() {
+        assertThatThrownBy(() -> mapper.readValue("{\"issued\":\"2021-13-01\"}", Invoice.class))
+                .isInstanceOf(InvalidFormatException.class);
+    }
+
+}
@@ -0,0 +1,131 @@
+package com.schambeck.webclient.limit;
+
+import com.schambeck.webclient.exception.ServerErrorException;
+import com.schambeck.webclient.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Tag("unit")
+class AdaptiveConcurrencyLimiterTest {
+
+    private MeterRegistry registry;
+
+    @BeforeEach
+    void setup() {
+        registry = new SimpleMeterRegistry();
+    }
+
+    private AdaptiveConcurrencyLimiter limiter(int initialLimit, Duration latencyThreshold) {
+        return new AdaptiveConcurrencyLimiter(registry, "test",
+                new ConcurrencyLimit(true, initialLimit, 1, 10, latencyThreshold, 0.5));
+    }
+
+    private double gauge(String name) {
+        return registry.get(name).tag("client", "test").gauge().value();
+    }
+
+    @Test
+    void limit_whenLimitReached_thenReject() {
+        AdaptiveConcurrencyLimiter limiter = limiter(2, Duration.ofSeconds(1));
+        Disposable first = limiter.limit(Sinks.<String>one().asMono()).subscribe();
+        Disposable second = limiter.limit(Sinks.<String>one().asMono()).subscribe();
+
+        StepVerifier.create(limiter.limit(Mono.just("third")))
+                .expectError(ServiceUnavailableException.class)
+                .verify();
+        assertThatThrownBy(() -> limiter.limit(() -> "fourth")).isInstanceOf(ServiceUnavailableException.class);
+
+        assertThat(gauge("invoice.client.concurrency.inflight")).isEqualTo(2);
+        assertThat(registry.get("invoice.client.concurrency.rejected").tag("client", "test").counter().count()).isEqualTo(2);
+        first.dispose();
+        second.dispose();
+        assertThat(gauge("invoice.client.concurrency.inflight")).isZero();
+    }
+
+    @Test
+    void limit_whenCallsSucceedAtLimit_thenIncrease() {
+        AdaptiveConcurrencyLimiter limiter = limiter(2, Duration.ofSeconds(1));
+        Sinks.One<String> first = Sinks.one();
+        Sinks.One<String> second = Sinks.one();
+        limiter.limit(first.asMono()).subscribe();
+        limiter.limit(second.asMono()).subscribe();
+
+        first.tryEmitValue("first");
+        second.tryEmitValue("second");
+
+        assertThat(gauge("invoice.client.concurrency.limit")).isEqualTo(3);
+        assertThat(gauge("invoice.client.concurrency.inflight")).isZero();
+    }
+
+    @Test
+    void limit_whenValueThenCancel_thenReleaseOnce() {
+        AdaptiveConcurrencyLimiter limiter = limiter(2, Duration.ofSeconds(1));
+
+        assertThat(limiter.limit(Mono.just(1)).flux().next().block()).isEqualTo(1);
+
+        assertThat(gauge("invoice.client.concurrency.inflight")).isZero();
+        assertThat(gauge("invoice.client.concurrency.limit")).isEqualTo(3);
+    }
+
+    @Test
+    void limit_whenFluxEmitsFirstElement_thenReleaseBeforeComplete() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = limiter(2, Duration.ofMillis(50));
+        Sinks.Many<String> stream = Sinks.many().unicast().onBackpressureBuffer();
+        limiter.limit(stream.asFlux()).subscribe();
+
+        stream.tryEmitNext("first");
+        assertThat(gauge("invoice.client.concurrency.inflight")).isZero();
+        Thread.sleep(100);
+        stream.tryEmitNext("second");
+        stream.tryEmitComplete();
+
+        assertThat(gauge("invoice.client.concurrency.limit")).isEqualTo(3);
+        assertThat(gauge("invoice.client.concurrency.inflight")).isZero();
+    }
+
+    @Test
+    void limit_whenServerError_thenBackOff() {
+        AdaptiveConcurrencyLimiter limiter = limiter(8, Duration.ofSeconds(1));
+
+        StepVerifier.create(limiter.limit(Mono.error(new ServerErrorException("Server error", 500))))
+                .expectError(ServerErrorException.class)
+                .verify();
+
+        assertThat(gauge("invoice.client.concurrency.limit")).isEqualTo(4);
+    }
+
+    @Test
+    void limit_whenSlowCall_thenBackOffToMinimum() {
+        AdaptiveConcurrencyLimiter limiter = limiter(2, Duration.ZERO);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.limit(() -> "slow")).isEqualTo("slow");
+        }
+
+        assertThat(gauge("invoice.client.concurrency.limit")).isEqualTo(1);
+    }
+
+    @Test
+    void limit_whenDisabled_thenPassThrough() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(registry, "test", ConcurrencyLimit.unlimited());
+
+        StepVerifier.create(limiter.limit(Mono.just("invoice")))
+                .expectNext("invoice")
+                .verifyComplete();
+
+        assertThat(registry.find("invoice.client.concurrency.limit").gauge()).isNull();
+    }
+
+}
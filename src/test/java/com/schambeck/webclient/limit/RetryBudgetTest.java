@@ -0,0 +1,75 @@
+package com.schambeck.webclient.limit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("unit")
+class RetryBudgetTest {
+
+    private MeterRegistry registry;
+
+    @BeforeEach
+    void setup() {
+        registry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void tryRetry_whenSavedUpRetriesUsed_thenThrottle() {
+        RetryBudget budget = new RetryBudget(registry, 0.1, Map.of(), 2);
+
+        assertThat(budget.tryRetry("findAll")).isTrue();
+        assertThat(budget.tryRetry("findAll")).isTrue();
+        assertThat(budget.tryRetry("findAll")).isFalse();
+
+        assertThat(registry.get("invoice.client.retries.throttled").tag("operation", "findAll").counter().count()).isEqualTo(1);
+        assertThat(registry.get("invoice.client.retry.budget").tag("operation", "findAll").gauge().value()).isZero();
+    }
+
+    @Test
+    void deposit_whenRatioOfCallsMade_thenAllowOneRetry() {
+        RetryBudget budget = new RetryBudget(registry, 0.1, Map.of(), 1);
+        budget.tryRetry("findById");
+
+        for (int i = 0; i < 9; i++) {
+            budget.deposit("findById");
+        }
+        assertThat(budget.tryRetry("findById")).isFalse();
+
+        for (int i = 0; i < 10; i++) {
+            budget.deposit("findById");
+        }
+        assertThat(budget.tryRetry("findById")).isTrue();
+    }
+
+    @Test
+    void deposit_whenOperationRatioConfigured_thenOverrideDefault() {
+        RetryBudget budget = new RetryBudget(registry, 0.1, Map.of("findAll", 0.5), 1);
+        budget.tryRetry("findAll");
+        budget.tryRetry("findById");
+
+        budget.deposit("findAll");
+        budget.deposit("findAll");
+        budget.deposit("findById");
+        budget.deposit("findById");
+
+        assertThat(budget.tryRetry("findAll")).isTrue();
+        assertThat(budget.tryRetry("findById")).isFalse();
+    }
+
+    @Test
+    void tryRetry_whenUnlimited_thenAlwaysAllow() {
+        RetryBudget budget = RetryBudget.unlimited();
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(budget.tryRetry("findAll")).isTrue();
+        }
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.schambeck.webclient.metrics;
+
+import com.schambeck.webclient.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.HttpClientErrorException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+
+@Tag("unit")
+class InvoiceClientMetricsTest {
+
+    private MeterRegistry registry;
+    private InvoiceClientMetrics metrics;
+
+    @BeforeEach
+    void setup() {
+        registry = new SimpleMeterRegistry();
+        metrics = new InvoiceClientMetrics(registry, "test");
+    }
+
+    private Timer timer(String operation, String outcome) {
+        return registry.get("invoice.client.requests").tag("client", "test").tag("operation", operation).tag("outcome", outcome).timer();
+    }
+
+    @Test
+    void timedMono() {
+        StepVerifier.create(metrics.timed("findById", Mono.just("invoice")))
+                .expectNext("invoice")
+                .verifyComplete();
+
+        assertThat(timer("findById", "success").count()).isEqualTo(1);
+    }
+
+    @Test
+    void timedFlux_whenError_thenOutcome() {
+        Flux<String> failing = Flux.error(new ServiceUnavailableException("unavailable", SERVICE_UNAVAILABLE.value()));
+        StepVerifier.create(metrics.timed("findAll", failing))
+                .expectError(ServiceUnavailableException.class)
+                .verify();
+
+        assertThat(timer("findAll", "unavailable").count()).isEqualTo(1);
+    }
+
+    @Test
+    void timedFlux_whenCancelled_thenOutcome() {
+        StepVerifier.create(metrics.timed("findAll", Flux.just("1", "2")), 1)
+                .expectNext("1")
+                .thenCancel()
+                .verify();
+
+        assertThat(timer("findAll", "cancelled").count()).isEqualTo(1);
+    }
+
+    @Test
+    void record() {
+        assertThat(metrics.record("create", () -> "invoice")).isEqualTo("invoice");
+
+        assertThat(timer("create", "success").count()).isEqualTo(1);
+    }
+
+    @Test
+    void record_whenClientError_thenCountError() {
+        assertThrows(HttpClientErrorException.class, () -> metrics.record("findById", () -> {
+            throw new HttpClientErrorException(NOT_FOUND);
+        }));
+
+        assertThat(timer("findById", "client_error").count()).isEqualTo(1);
+        assertThat(registry.get("invoice.client.errors").tag("type", "client").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void retries() {
+        metrics.retry("findAll");
+        metrics.retry("findAll");
+        metrics.retriesExhausted("findAll");
+
+        assertThat(registry.get("invoice.client.retries").tag("operation", "findAll").counter().count()).isEqualTo(2);
+        assertThat(registry.get("invoice.client.retries.exhausted").tag("operation", "findAll").counter().count()).isEqualTo(1);
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.schambeck.webclient.reactive;
+
+import com.schambeck.webclient.exception.GatewayTimeoutException;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.http.HttpMethod.GET;
+import static org.springframework.http.HttpStatus.OK;
+
+@Tag("unit")
+class DeadlineTest {
+
+    private final ClientRequest request = ClientRequest.create(GET, URI.create("http://localhost/invoices")).build();
+    private final AtomicReference<ClientRequest> sent = new AtomicReference<>();
+    private final ExchangeFunction exchange = request -> {
+        sent.set(request);
+        return Mono.just(ClientResponse.create(OK).build());
+    };
+
+    @Test
+    void propagation_whenBudgetLeft_thenSendRemainingBudget() {
+        Deadline deadline = new Deadline(Duration.ofMillis(200), Duration.ofSeconds(5));
+
+        StepVerifier.create(deadline.within(Deadline.propagation().filter(request, exchange)))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertThat(Long.parseLong(sent.get().headers().getFirst(Deadline.HEADER))).isBetween(1L, 5000L);
+    }
+
+    @Test
+    void propagation_whenBudgetSpent_thenFailWithoutSending() {
+        Deadline deadline = new Deadline(Duration.ofMillis(200), Duration.ofMillis(50));
+        Flux<Object> lateAttempt = Flux.<Object>just("first")
+                .concatWith(Mono.delay(Duration.ofMillis(100)).then(Deadline.propagation().filter(request, exchange)));
+
+        StepVerifier.create(deadline.within(lateAttempt))
+                .expectNext("first")
+                .expectError(GatewayTimeoutException.class)
+                .verify();
+
+        assertThat(sent).hasValue(null);
+    }
+
+}
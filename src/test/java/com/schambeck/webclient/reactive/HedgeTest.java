@@ -0,0 +1,104 @@
+package com.schambeck.webclient.reactive;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("unit")
+class HedgeTest {
+
+    private MeterRegistry registry;
+    private AtomicInteger calls;
+
+    @BeforeEach
+    void setup() {
+        registry = new SimpleMeterRegistry();
+        calls = new AtomicInteger();
+    }
+
+    private double count(String name) {
+        return registry.get(name).tag("operation", "test").counter().count();
+    }
+
+    private Supplier<Mono<String>> slowThenFast() {
+        return () -> calls.incrementAndGet() == 1
+                ? Mono.just("first").delayElement(Duration.ofSeconds(1))
+                : Mono.just("hedged").delayElement(Duration.ofMillis(10));
+    }
+
+    @Test
+    void slowCall_whenDelayElapsed_thenHedgeWins() {
+        Hedge hedge = new Hedge(registry, "test", Duration.ofMillis(100), 0, 1);
+
+        StepVerifier.withVirtualTime(() -> hedge.execute(slowThenFast()))
+                .thenAwait(Duration.ofMillis(110))
+                .expectNext("hedged")
+                .verifyComplete();
+
+        assertThat(calls).hasValue(2);
+        assertThat(count("invoice.client.hedges")).isEqualTo(1);
+        assertThat(count("invoice.client.hedge.wins")).isEqualTo(1);
+    }
+
+    @Test
+    void fastCall_whenAnsweredBeforeDelay_thenNoHedge() {
+        Hedge hedge = new Hedge(registry, "test", Duration.ofMillis(100), 0, 1);
+
+        StepVerifier.withVirtualTime(() -> hedge.execute(() -> {
+                    calls.incrementAndGet();
+                    return Mono.just("first").delayElement(Duration.ofMillis(50));
+                }))
+                .thenAwait(Duration.ofSeconds(1))
+                .expectNext("first")
+                .verifyComplete();
+
+        assertThat(calls).hasValue(1);
+        assertThat(count("invoice.client.hedges")).isZero();
+    }
+
+    @Test
+    void slowCall_whenBudgetExhausted_thenWaitForFirst() {
+        Hedge hedge = new Hedge(registry, "test", Duration.ofMillis(100), 0, 0.5);
+
+        StepVerifier.withVirtualTime(() -> hedge.execute(slowThenFast()))
+                .thenAwait(Duration.ofSeconds(1))
+                .expectNext("first")
+                .verifyComplete();
+
+        assertThat(calls).hasValue(1);
+        assertThat(count("invoice.client.hedges.skipped")).isEqualTo(1);
+    }
+
+    @Test
+    void delay_whenPercentileConfigured_thenFollowLatency() {
+        Hedge hedge = new Hedge(registry, "test", Duration.ofMillis(100), 0.5, 1);
+        assertThat(hedge.delay()).isEqualTo(Duration.ofMillis(100));
+
+        for (int i = 0; i < 10; i++) {
+            registry.get("invoice.client.hedge.latency").timer().record(Duration.ofMillis(300));
+        }
+
+        assertThat(hedge.delay()).isBetween(Duration.ofMillis(250), Duration.ofMillis(350));
+    }
+
+    @Test
+    void execute_whenDisabled_thenSingleCall() {
+        StepVerifier.withVirtualTime(() -> Hedge.disabled().execute(slowThenFast()))
+                .thenAwait(Duration.ofSeconds(1))
+                .expectNext("first")
+                .verifyComplete();
+
+        assertThat(calls).hasValue(1);
+    }
+
+}
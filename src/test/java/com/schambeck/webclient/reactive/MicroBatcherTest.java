@@ -0,0 +1,114 @@
+package com.schambeck.webclient.reactive;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("unit")
+class MicroBatcherTest {
+
+    private MeterRegistry registry;
+    private VirtualTimeScheduler scheduler;
+    private List<List<Integer>> batches;
+
+    @BeforeEach
+    void setup() {
+        registry = new SimpleMeterRegistry();
+        scheduler = VirtualTimeScheduler.create();
+        batches = new ArrayList<>();
+    }
+
+    private MicroBatcher<Integer, String> batcher(int maxSize, Function<List<Integer>, Flux<String>> batchCall) {
+        return new MicroBatcher<>(registry, "test", new Batching(true, maxSize, Duration.ofMillis(10)), items -> {
+            batches.add(items);
+            return batchCall.apply(items);
+        }, scheduler);
+    }
+
+    private static Flux<String> echo(List<Integer> items) {
+        return Flux.fromIterable(items).map(item -> "created-" + item);
+    }
+
+    private double flushes(String trigger) {
+        return registry.get("invoice.client.batch.flushes").tag("trigger", trigger).counter().count();
+    }
+
+    @Test
+    void submit_whenBatchFull_thenSendAtOnce() {
+        MicroBatcher<Integer, String> batcher = batcher(3, MicroBatcherTest::echo);
+
+        StepVerifier.create(Flux.range(1, 3).flatMap(batcher::submit))
+                .expectNext("created-1", "created-2", "created-3")
+                .verifyComplete();
+
+        assertThat(batches).containsExactly(List.of(1, 2, 3));
+        assertThat(flushes("size")).isEqualTo(1);
+        assertThat(registry.get("invoice.client.batch.size").summary().max()).isEqualTo(3);
+    }
+
+    @Test
+    void submit_whenLingerPassed_thenSendPartialBatch() {
+        MicroBatcher<Integer, String> batcher = batcher(10, MicroBatcherTest::echo);
+        Mono<String> first = batcher.submit(1).cache();
+        Mono<String> second = batcher.submit(2).cache();
+        first.subscribe();
+        second.subscribe();
+
+        assertThat(batches).isEmpty();
+        scheduler.advanceTimeBy(Duration.ofMillis(10));
+
+        assertThat(batches).containsExactly(List.of(1, 2));
+        StepVerifier.create(first).expectNext("created-1").verifyComplete();
+        StepVerifier.create(second).expectNext("created-2").verifyComplete();
+        assertThat(flushes("linger")).isEqualTo(1);
+    }
+
+    @Test
+    void submit_whenFullBeforeLinger_thenTimerDoesNotSendNextBatch() {
+        MicroBatcher<Integer, String> batcher = batcher(2, MicroBatcherTest::echo);
+        Flux.range(1, 3).flatMap(batcher::submit).subscribe();
+
+        assertThat(batches).containsExactly(List.of(1, 2));
+        scheduler.advanceTimeBy(Duration.ofMillis(10));
+
+        assertThat(batches).containsExactly(List.of(1, 2), List.of(3));
+        assertThat(flushes("size")).isEqualTo(1);
+        assertThat(flushes("linger")).isEqualTo(1);
+    }
+
+    @Test
+    void submit_whenBatchCallFails_thenEverySubmitterFails() {
+        MicroBatcher<Integer, String> batcher = batcher(2, items -> Flux.error(new IllegalArgumentException("upstream down")));
+
+        StepVerifier.create(batcher.submit(1).zipWith(batcher.submit(2)))
+                .expectErrorMessage("upstream down")
+                .verify();
+        assertThat(batches).hasSize(1);
+    }
+
+    @Test
+    void submit_whenFewerResults_thenMissingSubmittersFail() {
+        MicroBatcher<Integer, String> batcher = batcher(2, items -> Flux.just("created-" + items.get(0)));
+        Mono<String> first = batcher.submit(1).cache();
+        Mono<String> second = batcher.submit(2).cache();
+        first.subscribe(value -> { }, error -> { });
+        second.subscribe(value -> { }, error -> { });
+
+        StepVerifier.create(first).expectNext("created-1").verifyComplete();
+        StepVerifier.create(second).expectError(IllegalStateException.class).verify();
+    }
+
+}
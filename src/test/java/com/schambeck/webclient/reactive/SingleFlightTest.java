@@ -0,0 +1,93 @@
+package com.schambeck.webclient.reactive;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("unit")
+class SingleFlightTest {
+
+    private MeterRegistry registry;
+    private SingleFlight<Long, String> flight;
+    private AtomicInteger calls;
+
+    @BeforeEach
+    void setup() {
+        registry = new SimpleMeterRegistry();
+        flight = new SingleFlight<>(registry, "test");
+        calls = new AtomicInteger();
+    }
+
+    private double coalesced() {
+        return registry.get("invoice.client.coalesced").tag("operation", "test").counter().count();
+    }
+
+    @Test
+    void concurrentCalls_whenSameKey_thenShareSingleCall() {
+        Sinks.One<String> upstream = Sinks.one();
+        Mono<String> first = flight.execute(1L, () -> { calls.incrementAndGet(); return upstream.asMono(); });
+        Mono<String> second = flight.execute(1L, () -> { calls.incrementAndGet(); return upstream.asMono(); });
+
+        StepVerifier.create(Mono.zip(first, second))
+                .then(() -> upstream.tryEmitValue("invoice"))
+                .assertNext(results -> {
+                    assertThat(results.getT1()).isEqualTo("invoice");
+                    assertThat(results.getT2()).isEqualTo("invoice");
+                })
+                .verifyComplete();
+
+        assertThat(calls).hasValue(1);
+        assertThat(coalesced()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentCalls_whenError_thenPropagateToAll() {
+        Sinks.One<String> upstream = Sinks.one();
+        Mono<String> first = flight.execute(1L, upstream::asMono);
+        Mono<String> second = flight.execute(1L, upstream::asMono);
+
+        StepVerifier.create(Mono.zipDelayError(first.onErrorReturn("failed-1"), second.onErrorReturn("failed-2")))
+                .then(() -> upstream.tryEmitError(new IllegalStateException()))
+                .assertNext(results -> {
+                    assertThat(results.getT1()).isEqualTo("failed-1");
+                    assertThat(results.getT2()).isEqualTo("failed-2");
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void sequentialCalls_whenPreviousCompleted_thenCallAgain() {
+        StepVerifier.create(flight.execute(1L, () -> Mono.fromCallable(calls::incrementAndGet).map(String::valueOf)))
+                .expectNext("1")
+                .verifyComplete();
+        StepVerifier.create(flight.execute(1L, () -> Mono.fromCallable(calls::incrementAndGet).map(String::valueOf)))
+                .expectNext("2")
+                .verifyComplete();
+
+        assertThat(coalesced()).isZero();
+    }
+
+    @Test
+    void concurrentCalls_whenDifferentKeys_thenCallEach() {
+        Sinks.One<String> upstream = Sinks.one();
+        Mono<String> first = flight.execute(1L, () -> { calls.incrementAndGet(); return upstream.asMono(); });
+        Mono<String> second = flight.execute(2L, () -> { calls.incrementAndGet(); return upstream.asMono(); });
+
+        StepVerifier.create(Mono.zip(first, second))
+                .then(() -> upstream.tryEmitValue("invoice"))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertThat(calls).hasValue(2);
+    }
+
+}
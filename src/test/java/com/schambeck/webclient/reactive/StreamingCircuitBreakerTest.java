@@ -0,0 +1,87 @@
+package com.schambeck.webclient.reactive;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("unit")
+class StreamingCircuitBreakerTest {
+
+    private final CircuitBreaker circuitBreaker = CircuitBreaker.of("invoice-upstream", CircuitBreakerConfig.custom()
+            .slidingWindowSize(2)
+            .minimumNumberOfCalls(1)
+            .failureRateThreshold(50)
+            .slowCallRateThreshold(50)
+            .slowCallDurationThreshold(Duration.ofMillis(50))
+            .build());
+
+    @Test
+    void untilFirstElement_whenStreamOutlastsSlowCallThreshold_thenNotSlow() {
+        Flux<Integer> listing = Flux.just(1).concatWith(Mono.delay(Duration.ofMillis(150)).thenReturn(2));
+
+        StepVerifier.create(StreamingCircuitBreaker.untilFirstElement(circuitBreaker, listing))
+                .expectNext(1, 2)
+                .verifyComplete();
+
+        assertThat(circuitBreaker.getMetrics().getNumberOfSuccessfulCalls()).isEqualTo(1);
+        assertThat(circuitBreaker.getMetrics().getNumberOfSlowCalls()).isZero();
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void untilFirstElement_whenFirstElementLate_thenSlow() {
+        Flux<Integer> listing = Mono.delay(Duration.ofMillis(150)).thenReturn(1).flux();
+
+        StepVerifier.create(StreamingCircuitBreaker.untilFirstElement(circuitBreaker, listing))
+                .expectNext(1)
+                .verifyComplete();
+
+        assertThat(circuitBreaker.getMetrics().getNumberOfSlowCalls()).isEqualTo(1);
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void untilFirstElement_whenFailsBeforeFirstElement_thenOpenAndRejectNextCall() {
+        StepVerifier.create(StreamingCircuitBreaker.untilFirstElement(circuitBreaker, Flux.error(new IllegalStateException())))
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        StepVerifier.create(StreamingCircuitBreaker.untilFirstElement(circuitBreaker, Flux.just(1)))
+                .expectError(CallNotPermittedException.class)
+                .verify();
+    }
+
+    @Test
+    void untilFirstElement_whenFailsAfterFirstElement_thenRecordSuccessOnce() {
+        Flux<Integer> listing = Flux.just(1).concatWith(Flux.error(new IllegalStateException()));
+
+        StepVerifier.create(StreamingCircuitBreaker.untilFirstElement(circuitBreaker, listing))
+                .expectNext(1)
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        assertThat(circuitBreaker.getMetrics().getNumberOfSuccessfulCalls()).isEqualTo(1);
+        assertThat(circuitBreaker.getMetrics().getNumberOfFailedCalls()).isZero();
+    }
+
+    @Test
+    void untilFirstElement_whenCancelledBeforeFirstElement_thenReleasePermission() {
+        StepVerifier.create(StreamingCircuitBreaker.untilFirstElement(circuitBreaker, Flux.never()))
+                .thenCancel()
+                .verify();
+
+        assertThat(circuitBreaker.getMetrics().getNumberOfBufferedCalls()).isZero();
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+}
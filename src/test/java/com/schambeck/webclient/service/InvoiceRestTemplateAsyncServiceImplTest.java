@@ -0,0 +1,112 @@
+package com.schambeck.webclient.service;
+
+import com.schambeck.webclient.domain.Invoice;
+import com.schambeck.webclient.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Stream;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@Tag("unit")
+class InvoiceRestTemplateAsyncServiceImplTest {
+
+    private MeterRegistry registry;
+    private InvoiceRestTemplateService service;
+    private InvoiceRestTemplateAsyncServiceImpl asyncService;
+    private CountDownLatch upstream;
+
+    @BeforeEach
+    void setup() {
+        registry = new SimpleMeterRegistry();
+        service = mock(InvoiceRestTemplateService.class);
+        upstream = new CountDownLatch(1);
+        asyncService = new InvoiceRestTemplateAsyncServiceImpl(service, 1, 1, registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        upstream.countDown();
+        asyncService.shutdown();
+    }
+
+    private static Invoice createInvoice(Long id, String issued, double total) {
+        return new Invoice(id, LocalDate.parse(issued), BigDecimal.valueOf(total));
+    }
+
+    @Test
+    void findById_whenCalled_thenRunOnExecutor() throws Exception {
+        Invoice invoice = createInvoice(1L, "2021-02-01", 1000);
+        when(service.findById(1L)).thenAnswer(invocation -> {
+            assertThat(Thread.currentThread().getName()).startsWith("invoice-rest-template-");
+            return invoice;
+        });
+
+        assertThat(asyncService.findById(1L).get(5, SECONDS)).isEqualTo(invoice);
+    }
+
+    @Test
+    void findById_whenExecutorAndQueueFull_thenReject() {
+        when(service.findById(anyLong())).thenAnswer(invocation -> {
+            upstream.await();
+            return createInvoice(invocation.getArgument(0), "2021-02-01", 1000);
+        });
+
+        CompletableFuture<Invoice> running = asyncService.findById(1L);
+        CompletableFuture<Invoice> queued = asyncService.findById(2L);
+        CompletableFuture<Invoice> rejected = asyncService.findById(3L);
+
+        assertThatThrownBy(() -> rejected.get(5, SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(ServiceUnavailableException.class);
+        assertThat(registry.get("invoice.client.bulkhead.rejected").counter().count()).isEqualTo(1);
+        assertThat(running).isNotDone();
+        assertThat(queued).isNotDone();
+    }
+
+    @Test
+    void streamAll_whenSubscribed_thenReadOnExecutor() {
+        Invoice invoice = createInvoice(1L, "2021-02-01", 1000);
+        when(service.streamAll()).thenAnswer(invocation -> {
+            assertThat(Thread.currentThread().getName()).startsWith("invoice-rest-template-");
+            return Stream.of(invoice);
+        });
+
+        StepVerifier.create(asyncService.streamAll())
+                .expectNext(invoice)
+                .verifyComplete();
+    }
+
+    @Test
+    void streamAll_whenExecutorAndQueueFull_thenReject() {
+        when(service.findById(anyLong())).thenAnswer(invocation -> {
+            upstream.await();
+            return createInvoice(invocation.getArgument(0), "2021-02-01", 1000);
+        });
+        asyncService.findById(1L);
+        asyncService.findById(2L);
+
+        StepVerifier.create(asyncService.streamAll())
+                .expectError(ServiceUnavailableException.class)
+                .verify(Duration.ofSeconds(5));
+        assertThat(registry.get("invoice.client.bulkhead.rejected").counter().count()).isEqualTo(1);
+    }
+
+}
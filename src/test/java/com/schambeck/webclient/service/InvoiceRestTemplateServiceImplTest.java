@@ -0,0 +1,126 @@
+package com.schambeck.webclient.service;
+
+import com.schambeck.webclient.domain.Invoice;
+import com.schambeck.webclient.exception.ServiceUnavailableException;
+import com.schambeck.webclient.limit.ConcurrencyLimit;
+import com.schambeck.webclient.limit.RetryBudget;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.test.web.client.ExpectedCount.times;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+@Tag("unit")
+class InvoiceRestTemplateServiceImplTest {
+
+    private static final String INVOICE = "{\"id\":1,\"issued\":\"2021-02-01\",\"total\":1000}";
+
+    private MeterRegistry registry;
+    private RestTemplate restTemplate;
+    private MockRestServiceServer server;
+
+    @BeforeEach
+    void setup() {
+        registry = new SimpleMeterRegistry();
+        restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+    }
+
+    private InvoiceRestTemplateService service(RetryBudget retryBudget) {
+        return new InvoiceRestTemplateServiceImpl(restTemplate, ConcurrencyLimit.unlimited(), retryBudget, Duration.ofMillis(1), registry);
+    }
+
+    private double retries() {
+        return registry.get("invoice.client.retries").tag("operation", "findById").counter().count();
+    }
+
+    @Test
+    void streamAll_whenListing_thenParseWhileReading() {
+        String body = "[" + INVOICE + "," + INVOICE.replace("\"id\":1", "\"id\":2") + "]";
+        server.expect(requestTo("/invoices")).andExpect(header("Accept", APPLICATION_JSON_VALUE)).andRespond(withSuccess(body, APPLICATION_JSON));
+
+        try (Stream<Invoice> invoices = service(RetryBudget.unlimited()).streamAll()) {
+            assertThat(invoices).extracting(Invoice::getId).containsExactly(1L, 2L);
+        }
+
+        server.verify();
+    }
+
+    @Test
+    void streamAll_whenServerError_thenRetryOpening() {
+        server.expect(requestTo("/invoices")).andRespond(withStatus(SERVICE_UNAVAILABLE));
+        server.expect(requestTo("/invoices")).andRespond(withSuccess("[" + INVOICE + "]", APPLICATION_JSON));
+
+        try (Stream<Invoice> invoices = service(RetryBudget.unlimited()).streamAll()) {
+            assertThat(invoices).hasSize(1);
+        }
+
+        server.verify();
+        assertThat(registry.get("invoice.client.retries").tag("operation", "streamAll").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void streamAll_whenBodyTruncated_thenFailWhileReading() {
+        server.expect(requestTo("/invoices")).andRespond(withSuccess("[" + INVOICE + ",{\"id\":2", APPLICATION_JSON));
+
+        try (Stream<Invoice> invoices = service(RetryBudget.unlimited()).streamAll()) {
+            assertThatThrownBy(() -> invoices.forEach(invoice -> {})).isInstanceOf(UncheckedIOException.class);
+        }
+    }
+
+    @Test
+    void findById_whenServerError_thenRetry() {
+        server.expect(times(2), requestTo("/invoices/1")).andRespond(withStatus(SERVICE_UNAVAILABLE));
+        server.expect(requestTo("/invoices/1")).andRespond(withSuccess(INVOICE, APPLICATION_JSON));
+
+        assertThat(service(RetryBudget.unlimited()).findById(1L).getId()).isEqualTo(1L);
+
+        server.verify();
+        assertThat(retries()).isEqualTo(2);
+    }
+
+    @Test
+    void findById_whenRetriesExhausted_thenServiceUnavailable() {
+        server.expect(times(4), requestTo("/invoices/1")).andRespond(withStatus(SERVICE_UNAVAILABLE));
+
+        assertThatThrownBy(() -> service(RetryBudget.unlimited()).findById(1L))
+                .isInstanceOf(ServiceUnavailableException.class)
+                .hasMessage("External Service failed to process after max retries");
+
+        server.verify();
+        assertThat(registry.get("invoice.client.retries.exhausted").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void findById_whenRetryBudgetExhausted_thenServiceUnavailableWithoutRetry() {
+        InvoiceRestTemplateService service = service(new RetryBudget(registry, 0, Map.of(), 1));
+        server.expect(times(3), requestTo("/invoices/1")).andRespond(withStatus(SERVICE_UNAVAILABLE));
+
+        assertThatThrownBy(() -> service.findById(1L)).isInstanceOf(ServiceUnavailableException.class);
+        assertThatThrownBy(() -> service.findById(1L)).isInstanceOf(ServiceUnavailableException.class);
+
+        server.verify();
+        assertThat(retries()).isEqualTo(1);
+        assertThat(registry.get("invoice.client.retries.throttled").counter().count()).isEqualTo(2);
+        assertThat(registry.get("invoice.client.retries.exhausted").counter().count()).isEqualTo(2);
+    }
+
+}
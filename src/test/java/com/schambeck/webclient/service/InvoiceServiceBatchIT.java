@@ -0,0 +1,154 @@
+package com.schambeck.webclient.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.schambeck.webclient.aggregate.InvoiceAggregator;
+import com.schambeck.webclient.cache.NoOpInvoiceCache;
+import com.schambeck.webclient.cache.RevalidationCache;
+import com.schambeck.webclient.domain.Invoice;
+import com.schambeck.webclient.domain.InvoiceResult;
+import com.schambeck.webclient.exception.ClientErrorException;
+import com.schambeck.webclient.json.ObjectMapperUtil;
+import com.schambeck.webclient.reactive.Batching;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS_TIMESTAMPS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static javax.validation.Validation.buildDefaultValidatorFactory;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("integration")
+class InvoiceServiceBatchIT {
+
+    private ObjectMapperUtil mapperUtil;
+    private MockWebServer mockWebServer;
+    private SimpleMeterRegistry registry;
+    private InvoiceService service;
+
+    @BeforeEach
+    void setup() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(WRITE_DATES_AS_TIMESTAMPS);
+        mapperUtil = new ObjectMapperUtil(mapper);
+
+        mockWebServer = new MockWebServer();
+        mockWebServer.start();
+
+        String baseUrl = mockWebServer.url("/").toString();
+        registry = new SimpleMeterRegistry();
+        service = new InvoiceServiceImpl(WebClient.create(baseUrl), new NoOpInvoiceCache(), RevalidationCache.disabled(), InvoiceAggregator.disabled(), buildDefaultValidatorFactory().getValidator(),
+                InvoiceResilience.defaults(), new Batching(true, 3, Duration.ofMillis(200)), registry);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        mockWebServer.shutdown();
+    }
+
+    private Invoice createInvoice(Long id, String issued, double total) {
+        return new Invoice(id, LocalDate.parse(issued), BigDecimal.valueOf(total));
+    }
+
+    private boolean assertInvoice(Invoice invoice, int id, String issued, double total) {
+        return invoice.getId().equals((long) id)
+                && invoice.getIssued().equals(LocalDate.parse(issued))
+                && invoice.getTotal().equals(BigDecimal.valueOf(total));
+    }
+
+    private void enqueueResults(InvoiceResult... results) {
+        StringBuilder body = new StringBuilder();
+        for (InvoiceResult result : results) {
+            body.append(mapperUtil.asJsonString(result)).append('\n');
+        }
+        mockWebServer.enqueue(new MockResponse().setBody(body.toString())
+                .addHeader("Content-Type", "application/x-ndjson"));
+    }
+
+    @Test
+    void create_whenBatchFull_thenSingleBulkRequest() throws InterruptedException {
+        enqueueResults(InvoiceResult.success(1L, 201, createInvoice(1L, "2021-02-01", 1000)),
+                InvoiceResult.success(2L, 201, createInvoice(2L, "2021-02-02", 2000)),
+                InvoiceResult.success(3L, 201, createInvoice(3L, "2021-02-03", 3000)));
+
+        Mono<Invoice> first = service.create(createInvoice(null, "2021-02-01", 1000));
+        Mono<Invoice> second = service.create(createInvoice(null, "2021-02-02", 2000));
+        Mono<Invoice> third = service.create(createInvoice(null, "2021-02-03", 3000));
+
+        StepVerifier.create(Mono.zip(first, second, third))
+                .expectNextMatches(created -> assertInvoice(created.getT1(), 1, "2021-02-01", 1000)
+                        && assertInvoice(created.getT2(), 2, "2021-02-02", 2000)
+                        && assertInvoice(created.getT3(), 3, "2021-02-03", 3000))
+                .verifyComplete();
+
+        RecordedRequest request = mockWebServer.takeRequest(1, SECONDS);
+        assertThat(request.getPath()).isEqualTo("/invoices/bulk");
+        assertThat(request.getHeader("Content-Type")).startsWith("application/x-ndjson");
+        assertThat(request.getBody().readUtf8().split("\n")).hasSize(3);
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    void create_whenLingerPassed_thenPartialBatch() throws InterruptedException {
+        enqueueResults(InvoiceResult.success(1L, 201, createInvoice(1L, "2021-02-01", 1000)));
+
+        StepVerifier.create(service.create(createInvoice(null, "2021-02-01", 1000)))
+                .expectNextMatches(invoice -> assertInvoice(invoice, 1, "2021-02-01", 1000))
+                .verifyComplete();
+
+        assertThat(mockWebServer.takeRequest(1, SECONDS).getPath()).isEqualTo("/invoices/bulk");
+        assertThat(registry.get("invoice.client.batch.flushes").tag("trigger", "linger").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void create_whenOneRejected_thenOnlyThatCallerFails() {
+        enqueueResults(InvoiceResult.success(1L, 201, createInvoice(1L, "2021-02-01", 1000)),
+                InvoiceResult.failure(null, 400, "Client error"),
+                InvoiceResult.success(3L, 201, createInvoice(3L, "2021-02-03", 3000)));
+
+        Mono<Invoice> first = service.create(createInvoice(null, "2021-02-01", 1000)).cache();
+        Mono<Invoice> second = service.create(createInvoice(null, "2021-02-02", -1)).cache();
+        Mono<Invoice> third = service.create(createInvoice(null, "2021-02-03", 3000)).cache();
+        first.subscribe(value -> { }, error -> { });
+        second.subscribe(value -> { }, error -> { });
+        third.subscribe(value -> { }, error -> { });
+
+        StepVerifier.create(first)
+                .expectNextMatches(invoice -> assertInvoice(invoice, 1, "2021-02-01", 1000))
+                .verifyComplete();
+        StepVerifier.create(second)
+                .expectErrorMatches(throwable -> throwable instanceof ClientErrorException
+                        && ((ClientErrorException) throwable).getStatusCode() == 400)
+                .verify();
+        StepVerifier.create(third)
+                .expectNextMatches(invoice -> assertInvoice(invoice, 3, "2021-02-03", 3000))
+                .verifyComplete();
+    }
+
+    @Test
+    void create_whenBulkRequestFails_thenEveryCallerFails() {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(400));
+
+        StepVerifier.create(Mono.zip(service.create(createInvoice(null, "2021-02-01", 1000)),
+                        service.create(createInvoice(null, "2021-02-02", 2000)),
+                        service.create(createInvoice(null, "2021-02-03", 3000))))
+                .expectError(ClientErrorException.class)
+                .verify();
+    }
+
+}
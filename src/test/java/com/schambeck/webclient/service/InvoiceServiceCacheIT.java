@@ -0,0 +1,120 @@
+package com.schambeck.webclient.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.schambeck.webclient.aggregate.InvoiceAggregator;
+import com.schambeck.webclient.cache.LruInvoiceCache;
+import com.schambeck.webclient.cache.RevalidationCache;
+import com.schambeck.webclient.domain.Invoice;
+import com.schambeck.webclient.json.ObjectMapperUtil;
+import com.schambeck.webclient.reactive.Batching;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.test.StepVerifier;
+
+import javax.validation.Validator;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS_TIMESTAMPS;
+import static javax.validation.Validation.buildDefaultValidatorFactory;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("integration")
+class InvoiceServiceCacheIT {
+
+    private ObjectMapperUtil mapperUtil;
+    private MockWebServer mockWebServer;
+    private InvoiceService service;
+
+    @BeforeEach
+    void setup() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(WRITE_DATES_AS_TIMESTAMPS);
+        mapperUtil = new ObjectMapperUtil(mapper);
+
+        mockWebServer = new MockWebServer();
+        mockWebServer.start();
+
+        String baseUrl = mockWebServer.url("/").toString();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        LruInvoiceCache cache = new LruInvoiceCache(registry, 100, Duration.ofMinutes(1));
+        service = new InvoiceServiceImpl(WebClient.create(baseUrl), cache, RevalidationCache.disabled(), InvoiceAggregator.disabled(), validator(),
+                InvoiceResilience.defaults(), Batching.disabled(), registry);
+    }
+
+    private static Validator validator() {
+        return buildDefaultValidatorFactory().getValidator();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        mockWebServer.shutdown();
+    }
+
+    private Invoice createInvoice(Long id, String issued, double total) {
+        return new Invoice(id, LocalDate.parse(issued), BigDecimal.valueOf(total));
+    }
+
+    private boolean assertInvoice(Invoice invoice, int id, String issued, double total) {
+        return invoice.getId().equals((long) id)
+                && invoice.getIssued().equals(LocalDate.parse(issued))
+                && invoice.getTotal().equals(BigDecimal.valueOf(total));
+    }
+
+    private void enqueue(Invoice invoice) {
+        mockWebServer.enqueue(new MockResponse().setBody(mapperUtil.asJsonString(invoice))
+                .addHeader("Content-Type", "application/json"));
+    }
+
+    @Test
+    void findByIdTwice_whenCached_thenSingleUpstreamRequest() {
+        enqueue(createInvoice(1L, "2021-02-01", 1000));
+
+        StepVerifier.create(service.findById(1L))
+                .expectNextMatches(invoice -> assertInvoice(invoice, 1, "2021-02-01", 1000))
+                .verifyComplete();
+        StepVerifier.create(service.findById(1L))
+                .expectNextMatches(invoice -> assertInvoice(invoice, 1, "2021-02-01", 1000))
+                .verifyComplete();
+
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    void findByIdAfterUpdate_whenCached_thenReturnUpdated() {
+        enqueue(createInvoice(1L, "2021-02-01", 1000));
+        enqueue(createInvoice(1L, "2021-02-01", 1500));
+
+        StepVerifier.create(service.findById(1L)).expectNextCount(1).verifyComplete();
+        StepVerifier.create(service.update(1L, createInvoice(1L, "2021-02-01", 1500))).expectNextCount(1).verifyComplete();
+        StepVerifier.create(service.findById(1L))
+                .expectNextMatches(invoice -> assertInvoice(invoice, 1, "2021-02-01", 1500))
+                .verifyComplete();
+
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(2);
+    }
+
+    @Test
+    void findByIdAfterDelete_whenCached_thenFetchAgain() {
+        enqueue(createInvoice(1L, "2021-02-01", 1000));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(204));
+        enqueue(createInvoice(1L, "2021-02-01", 1000));
+
+        StepVerifier.create(service.findById(1L)).expectNextCount(1).verifyComplete();
+        StepVerifier.create(service.delete(1L)).verifyComplete();
+        StepVerifier.create(service.findById(1L)).expectNextCount(1).verifyComplete();
+
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(3);
+    }
+
+}
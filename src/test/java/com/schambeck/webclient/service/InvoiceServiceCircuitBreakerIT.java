@@ -0,0 +1,169 @@
+package com.schambeck.webclient.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.schambeck.webclient.aggregate.InvoiceAggregator;
+import com.schambeck.webclient.cache.NoOpInvoiceCache;
+import com.schambeck.webclient.cache.RevalidationCache;
+import com.schambeck.webclient.domain.Invoice;
+import com.schambeck.webclient.exception.ClientErrorException;
+import com.schambeck.webclient.exception.ServerErrorException;
+import com.schambeck.webclient.exception.ServiceUnavailableException;
+import com.schambeck.webclient.json.ObjectMapperUtil;
+import com.schambeck.webclient.limit.ConcurrencyLimit;
+import com.schambeck.webclient.reactive.Batching;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS_TIMESTAMPS;
+import static io.netty.handler.codec.http.HttpResponseStatus.*;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static javax.validation.Validation.buildDefaultValidatorFactory;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("integration")
+class InvoiceServiceCircuitBreakerIT {
+
+    private ObjectMapperUtil mapperUtil;
+    private MockWebServer mockWebServer;
+    private CircuitBreaker circuitBreaker;
+    private InvoiceService service;
+
+    @BeforeEach
+    void setup() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(WRITE_DATES_AS_TIMESTAMPS);
+        mapperUtil = new ObjectMapperUtil(mapper);
+
+        mockWebServer = new MockWebServer();
+        mockWebServer.start();
+
+        circuitBreaker = CircuitBreaker.of("invoice-upstream", CircuitBreakerConfig.custom()
+                .slidingWindowSize(2)
+                .minimumNumberOfCalls(2)
+                .failureRateThreshold(50)
+                .waitDurationInOpenState(Duration.ofMillis(200))
+                .permittedNumberOfCallsInHalfOpenState(1)
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                .ignoreExceptions(ClientErrorException.class)
+                .build());
+        String baseUrl = mockWebServer.url("/").toString();
+        service = new InvoiceServiceImpl(WebClient.create(baseUrl), new NoOpInvoiceCache(), RevalidationCache.disabled(), InvoiceAggregator.disabled(), buildDefaultValidatorFactory().getValidator(),
+                InvoiceResilience.defaults().withCircuitBreaker(circuitBreaker), Batching.disabled(), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        mockWebServer.shutdown();
+    }
+
+    private Invoice createInvoice(Long id, String issued, double total) {
+        return new Invoice(id, LocalDate.parse(issued), BigDecimal.valueOf(total));
+    }
+
+    private void openCircuit() {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(INTERNAL_SERVER_ERROR.code()));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(INTERNAL_SERVER_ERROR.code()));
+        Invoice invoice = createInvoice(null, "2021-02-01", 1000);
+
+        StepVerifier.create(service.create(invoice)).expectError(ServerErrorException.class).verify();
+        StepVerifier.create(service.create(invoice)).expectError(ServerErrorException.class).verify();
+    }
+
+    @Test
+    void createFails_whenThresholdReached_thenFailFast() {
+        openCircuit();
+
+        StepVerifier.create(service.create(createInvoice(null, "2021-02-01", 1000)))
+                .expectError(ServiceUnavailableException.class)
+                .verify();
+
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(2);
+    }
+
+    @Test
+    void findByIdFails_whenOpen_thenNoRetry() {
+        openCircuit();
+
+        StepVerifier.create(service.findById(1L))
+                .expectError(ServiceUnavailableException.class)
+                .verify(Duration.ofSeconds(1));
+
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(2);
+    }
+
+    @Test
+    void clientErrors_whenReturned_thenCircuitStaysClosed() {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(NOT_FOUND.code()));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(NOT_FOUND.code()));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(NOT_FOUND.code()));
+
+        for (int i = 0; i < 3; i++) {
+            StepVerifier.create(service.delete(1L)).expectError(ClientErrorException.class).verify();
+        }
+
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(3);
+    }
+
+    @Test
+    void limiterRejects_whenConcurrencyLimitReached_thenCircuitStaysClosed() {
+        InvoiceService limited = new InvoiceServiceImpl(WebClient.create(mockWebServer.url("/").toString()), new NoOpInvoiceCache(), RevalidationCache.disabled(),
+                InvoiceAggregator.disabled(), buildDefaultValidatorFactory().getValidator(),
+                InvoiceResilience.defaults().withCircuitBreaker(circuitBreaker)
+                        .withConcurrencyLimit(new ConcurrencyLimit(true, 1, 1, 1, Duration.ofSeconds(5), 0.5)),
+                Batching.disabled(), new SimpleMeterRegistry());
+        Invoice invoice = createInvoice(1L, "2021-02-01", 1000);
+        mockWebServer.enqueue(new MockResponse().setBody(mapperUtil.asJsonString(invoice))
+                .addHeader("Content-Type", "application/json")
+                .setHeadersDelay(300, MILLISECONDS));
+
+        StepVerifier.create(limited.create(invoice))
+                .then(() -> {
+                    for (int i = 0; i < 3; i++) {
+                        StepVerifier.create(limited.create(invoice))
+                                .expectErrorMessage("Too many concurrent requests to the External Service")
+                                .verify();
+                    }
+                })
+                .expectNext(invoice)
+                .verifyComplete();
+
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(circuitBreaker.getMetrics().getNumberOfFailedCalls()).isZero();
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    void probeSucceeds_whenHalfOpen_thenClose() throws Exception {
+        openCircuit();
+        Thread.sleep(300);
+        Invoice invoice = createInvoice(1L, "2021-02-01", 1000);
+        mockWebServer.enqueue(new MockResponse().setBody(mapperUtil.asJsonString(invoice))
+                .addHeader("Content-Type", "application/json"));
+
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        StepVerifier.create(service.create(invoice))
+                .expectNext(invoice)
+                .verifyComplete();
+
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+}
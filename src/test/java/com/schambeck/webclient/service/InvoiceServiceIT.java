@@ -2,9 +2,18 @@ package com.schambeck.webclient.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.schambeck.webclient.aggregate.Granularity;
+import com.schambeck.webclient.aggregate.InvoiceAggregator;
+import com.schambeck.webclient.cache.NoOpInvoiceCache;
+import com.schambeck.webclient.cache.RevalidationCache;
 import com.schambeck.webclient.json.ObjectMapperUtil;
 import com.schambeck.webclient.exception.ClientErrorException;
 import com.schambeck.webclient.domain.Invoice;
+import com.schambeck.webclient.domain.InvoiceResult;
+import com.schambeck.webclient.reactive.Batching;
+import com.schambeck.webclient.reactive.Hedge;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.Dispatcher;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
 import okhttp3.mockwebserver.RecordedRequest;
@@ -12,18 +21,30 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import javax.validation.Validator;
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
 import static com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS_TIMESTAMPS;
+import static javax.validation.Validation.buildDefaultValidatorFactory;
 import static io.netty.handler.codec.http.HttpResponseStatus.NOT_FOUND;
+import static io.netty.handler.codec.http.HttpResponseStatus.SERVICE_UNAVAILABLE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @Tag("integration")
 class InvoiceServiceIT {
@@ -43,7 +64,12 @@ class InvoiceServiceIT {
         mockWebServer.start();
 
         String baseUrl = mockWebServer.url("/").toString();
-        service = new InvoiceServiceImpl(WebClient.create(baseUrl));
+        service = new InvoiceServiceImpl(WebClient.create(baseUrl), new NoOpInvoiceCache(), RevalidationCache.disabled(), InvoiceAggregator.disabled(), validator(),
+                InvoiceResilience.defaults(), Batching.disabled(), new SimpleMeterRegistry());
+    }
+
+    private static Validator validator() {
+        return buildDefaultValidatorFactory().getValidator();
     }
 
     @AfterEach
@@ -84,6 +110,128 @@ class InvoiceServiceIT {
         assertEquals("/invoices", recordedRequest.getPath());
     }
 
+    private void dispatchPages(int count) {
+        mockWebServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String afterId = request.getRequestUrl().queryParameter("afterId");
+                long from = afterId == null ? 1 : Long.parseLong(afterId) + 1;
+                long to = Math.min(count, from + Long.parseLong(request.getRequestUrl().queryParameter("limit")) - 1);
+                StringBuilder body = new StringBuilder();
+                for (long id = from; id <= to; id++) {
+                    body.append(mapperUtil.asJsonString(createInvoice(id, "2021-02-01", id * 1000))).append('\n');
+                }
+                return new MockResponse().setBody(body.toString()).addHeader("Content-Type", "application/x-ndjson");
+            }
+        });
+    }
+
+    private boolean awaitRequestCount(int expected) {
+        for (int i = 0; i < 25 && mockWebServer.getRequestCount() < expected; i++) {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return mockWebServer.getRequestCount() == expected;
+    }
+
+    @Test
+    void findPage() throws Exception {
+        dispatchPages(5);
+
+        StepVerifier.create(service.findPage(2L, 2))
+                .expectNextMatches(invoice -> assertInvoice(invoice, 3, "2021-02-01", 3000))
+                .expectNextMatches(invoice -> assertInvoice(invoice, 4, "2021-02-01", 4000))
+                .verifyComplete();
+
+        assertEquals("/invoices?afterId=2&limit=2", mockWebServer.takeRequest().getPath());
+    }
+
+    @Test
+    void findAllPaged() throws Exception {
+        dispatchPages(5);
+
+        StepVerifier.create(service.findAllPaged(2, false).map(Invoice::getId))
+                .expectNext(1L, 2L, 3L, 4L, 5L)
+                .verifyComplete();
+
+        assertEquals("/invoices?limit=2", mockWebServer.takeRequest().getPath());
+        assertEquals("/invoices?afterId=2&limit=2", mockWebServer.takeRequest().getPath());
+        assertEquals("/invoices?afterId=4&limit=2", mockWebServer.takeRequest().getPath());
+        assertEquals(3, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    void findAllPaged_whenUpstreamIgnoresCursor_thenStop() throws Exception {
+        String payload = mapperUtil.asJsonString(createInvoice(1L, "2021-02-01", 1000)) + "\n"
+                + mapperUtil.asJsonString(createInvoice(2L, "2021-02-02", 2000)) + "\n"
+                + mapperUtil.asJsonString(createInvoice(3L, "2021-02-03", 3000)) + "\n";
+        for (int i = 0; i < 3; i++) {
+            mockWebServer.enqueue(new MockResponse().setBody(payload).addHeader("Content-Type", "application/x-ndjson"));
+        }
+
+        StepVerifier.create(service.findAllPaged(2, true).map(Invoice::getId))
+                .expectNext(1L, 2L, 3L)
+                .verifyComplete();
+
+        assertEquals("/invoices?limit=2", mockWebServer.takeRequest(1, SECONDS).getPath());
+        assertEquals("/invoices?afterId=3&limit=2", mockWebServer.takeRequest(1, SECONDS).getPath());
+        assertEquals(2, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    void findAllPaged_whenPrefetch_thenRequestNextPageWhileConsuming() {
+        dispatchPages(4);
+
+        StepVerifier.create(service.findAllPaged(2, true).map(Invoice::getId), 1)
+                .expectNext(1L)
+                .then(() -> assertTrue(awaitRequestCount(2)))
+                .thenRequest(3)
+                .expectNext(2L, 3L, 4L)
+                .verifyComplete();
+    }
+
+    @Test
+    void findAllPaged_whenNoPrefetch_thenRequestNextPageOnceConsumed() {
+        dispatchPages(4);
+
+        StepVerifier.create(service.findAllPaged(2, false).map(Invoice::getId), 1)
+                .expectNext(1L)
+                .then(() -> assertFalse(awaitRequestCount(2)))
+                .thenRequest(3)
+                .expectNext(2L, 3L, 4L)
+                .verifyComplete();
+    }
+
+    @Test
+    void findAllRaw() throws Exception {
+        String payload = mapperUtil.asJsonString(createInvoice(1L, "2021-02-01", 1000)) + "\n"
+                + mapperUtil.asJsonString(createInvoice(2L, "2021-02-02", 2000)) + "\n";
+        mockWebServer.enqueue(new MockResponse().setBody(payload)
+                .addHeader("Content-Type", "application/x-ndjson"));
+
+        StepVerifier.create(DataBufferUtils.join(service.findAllRaw()).map(buffer -> buffer.toString(UTF_8)))
+                .expectNext(payload)
+                .verifyComplete();
+
+        RecordedRequest recordedRequest = mockWebServer.takeRequest();
+        assertEquals("GET", recordedRequest.getMethod());
+        assertEquals("/invoices", recordedRequest.getPath());
+        assertEquals("application/x-ndjson", recordedRequest.getHeader("Accept"));
+    }
+
+    @Test
+    void findAllRawNotFound() {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(NOT_FOUND.code()));
+
+        StepVerifier.create(service.findAllRaw())
+                .expectError(ClientErrorException.class)
+                .verify();
+    }
+
     @Test
     void findById() throws Exception {
         Invoice payload = createInvoice(1L, "2021-02-01", 1000);
@@ -99,6 +247,75 @@ class InvoiceServiceIT {
         assertEquals("/invoices/1", recordedRequest.getPath());
     }
 
+    @Test
+    void findByIdHedged() {
+        String baseUrl = mockWebServer.url("/").toString();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Hedge hedge = new Hedge(registry, "findById", Duration.ofMillis(100), 0, 1);
+        InvoiceService hedgedService = new InvoiceServiceImpl(WebClient.create(baseUrl), new NoOpInvoiceCache(), RevalidationCache.disabled(), InvoiceAggregator.disabled(), validator(),
+                InvoiceResilience.defaults().withFindByIdHedge(hedge), Batching.disabled(), registry);
+        mockWebServer.enqueue(new MockResponse().setBody(mapperUtil.asJsonString(createInvoice(1L, "2021-02-01", 1000)))
+                .addHeader("Content-Type", "application/json")
+                .setHeadersDelay(2000, MILLISECONDS));
+        mockWebServer.enqueue(new MockResponse().setBody(mapperUtil.asJsonString(createInvoice(1L, "2021-02-01", 2000)))
+                .addHeader("Content-Type", "application/json"));
+
+        StepVerifier.create(hedgedService.findById(1L))
+                .expectNextMatches(invoice -> assertInvoice(invoice, 1, "2021-02-01", 2000))
+                .expectComplete()
+                .verify(Duration.ofSeconds(1));
+
+        assertEquals(2, mockWebServer.getRequestCount());
+        assertEquals(1, registry.get("invoice.client.hedges").counter().count());
+        assertEquals(1, registry.get("invoice.client.hedge.wins").counter().count());
+    }
+
+    @Test
+    void aggregateMaintainedByWrites() {
+        String baseUrl = mockWebServer.url("/").toString();
+        InvoiceService aggregatingService = new InvoiceServiceImpl(WebClient.create(baseUrl), new NoOpInvoiceCache(), RevalidationCache.disabled(), new InvoiceAggregator(Duration.ofMinutes(5)), validator(),
+                InvoiceResilience.defaults(), Batching.disabled(), new SimpleMeterRegistry());
+        mockWebServer.enqueue(new MockResponse().setBody(mapperUtil.asJsonString(createInvoice(1L, "2021-02-01", 1000)) + "\n"
+                        + mapperUtil.asJsonString(createInvoice(2L, "2021-02-02", 2000)) + "\n")
+                .addHeader("Content-Type", "application/x-ndjson"));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(201).setBody(mapperUtil.asJsonString(createInvoice(3L, "2021-03-01", 500)))
+                .addHeader("Content-Type", "application/json"));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(204));
+
+        StepVerifier.create(aggregatingService.aggregate(Granularity.MONTH, null, null))
+                .expectNextMatches(aggregates -> aggregates.getRange().getCount() == 2
+                        && aggregates.getPeriods().size() == 1
+                        && aggregates.getPeriods().get(0).getTotal().compareTo(BigDecimal.valueOf(3000)) == 0)
+                .verifyComplete();
+        aggregatingService.create(createInvoice(null, "2021-03-01", 500)).block();
+        aggregatingService.delete(2L).block();
+        StepVerifier.create(aggregatingService.aggregate(Granularity.MONTH, null, null))
+                .expectNextMatches(aggregates -> aggregates.getRange().getCount() == 2
+                        && aggregates.getRange().getMin().compareTo(BigDecimal.valueOf(500)) == 0
+                        && aggregates.getRange().getMax().compareTo(BigDecimal.valueOf(1000)) == 0
+                        && aggregates.getPeriods().get(0).getPeriod().equals("2021-02")
+                        && aggregates.getPeriods().get(1).getPeriod().equals("2021-03"))
+                .verifyComplete();
+
+        // loaded once by the first query, then kept up to date by create and delete
+        assertEquals(3, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    void findByIdConcurrent() {
+        Invoice payload = createInvoice(1L, "2021-02-01", 1000);
+        mockWebServer.enqueue(new MockResponse().setBody(mapperUtil.asJsonString(payload))
+                .addHeader("Content-Type", "application/json")
+                .setHeadersDelay(200, MILLISECONDS));
+
+        StepVerifier.create(Mono.zip(service.findById(1L), service.findById(1L)))
+                .expectNextMatches(invoices -> assertInvoice(invoices.getT1(), 1, "2021-02-01", 1000)
+                        && assertInvoice(invoices.getT2(), 1, "2021-02-01", 1000))
+                .verifyComplete();
+
+        assertEquals(1, mockWebServer.getRequestCount());
+    }
+
     @Test
     void findByIdNotFound() throws Exception {
         mockWebServer.enqueue(new MockResponse().setResponseCode(NOT_FOUND.code()));
@@ -112,6 +329,50 @@ class InvoiceServiceIT {
         assertEquals("/invoices/1", recordedRequest.getPath());
     }
 
+    @Test
+    void findAllById() {
+        mockWebServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                switch (request.getPath()) {
+                    case "/invoices/1":
+                        return new MockResponse().setBody(mapperUtil.asJsonString(createInvoice(1L, "2021-02-01", 1000)))
+                                .addHeader("Content-Type", "application/json")
+                                .setHeadersDelay(100, MILLISECONDS);
+                    case "/invoices/2":
+                        return new MockResponse().setBody(mapperUtil.asJsonString(createInvoice(2L, "2021-02-02", 2000)))
+                                .addHeader("Content-Type", "application/json");
+                    default:
+                        return new MockResponse().setResponseCode(NOT_FOUND.code());
+                }
+            }
+        });
+
+        StepVerifier.create(service.findAllById(Flux.just(1L, 6L, 2L), 3, true))
+                .expectNextMatches(result -> assertInvoice(result.getInvoice(), 1, "2021-02-01", 1000))
+                .expectNextMatches(result -> result.getId() == 6L && result.getStatus() == NOT_FOUND.code() && result.getInvoice() == null)
+                .expectNextMatches(result -> assertInvoice(result.getInvoice(), 2, "2021-02-02", 2000))
+                .verifyComplete();
+
+        assertEquals(3, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    void findAllByIdUnordered() {
+        mockWebServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse().setBody(mapperUtil.asJsonString(createInvoice(1L, "2021-02-01", 1000)))
+                        .addHeader("Content-Type", "application/json")
+                        .setHeadersDelay("/invoices/1".equals(request.getPath()) ? 1000 : 0, MILLISECONDS);
+            }
+        });
+
+        StepVerifier.create(service.findAllById(Flux.just(1L, 2L), 2, false).map(InvoiceResult::getId))
+                .expectNext(2L, 1L)
+                .verifyComplete();
+    }
+
     @Test
     void create() throws Exception {
         Invoice payload = createInvoice(1L, "2021-02-01", 1000);
@@ -127,6 +388,26 @@ class InvoiceServiceIT {
         assertEquals("/invoices", recordedRequest.getPath());
     }
 
+    @Test
+    void createAll() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setBody(mapperUtil.asJsonString(createInvoice(1L, "2021-02-01", 1000)))
+                .addHeader("Content-Type", "application/json"));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(SERVICE_UNAVAILABLE.code()));
+
+        Flux<Invoice> invoices = Flux.just(
+                createInvoice(null, "2021-02-01", 1000),
+                createInvoice(null, "2021-02-02", -1),
+                createInvoice(null, "2021-02-03", 3000));
+        StepVerifier.create(service.createAll(invoices, 1))
+                .expectNextMatches(result -> result.getStatus() == 201 && assertInvoice(result.getInvoice(), 1, "2021-02-01", 1000))
+                .expectNextMatches(result -> result.getStatus() == 400 && "Total must be positive".equals(result.getError()))
+                .expectNextMatches(result -> result.getStatus() == SERVICE_UNAVAILABLE.code() && result.getInvoice() == null)
+                .verifyComplete();
+
+        assertEquals(2, mockWebServer.getRequestCount());
+        assertEquals("POST", mockWebServer.takeRequest().getMethod());
+    }
+
     @Test
     void update() throws Exception {
         Invoice payload = createInvoice(1L, "2021-02-01", 1000);
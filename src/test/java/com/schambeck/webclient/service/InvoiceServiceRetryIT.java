@@ -2,24 +2,34 @@ package com.schambeck.webclient.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.schambeck.webclient.aggregate.InvoiceAggregator;
+import com.schambeck.webclient.cache.NoOpInvoiceCache;
+import com.schambeck.webclient.cache.RevalidationCache;
 import com.schambeck.webclient.json.ObjectMapperUtil;
 import com.schambeck.webclient.exception.ClientErrorException;
 import com.schambeck.webclient.exception.ServiceUnavailableException;
 import com.schambeck.webclient.domain.Invoice;
+import com.schambeck.webclient.limit.RetryBudget;
+import com.schambeck.webclient.reactive.Batching;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
 import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
 import org.junit.jupiter.api.*;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.test.StepVerifier;
 
+import javax.validation.Validator;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import static com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS_TIMESTAMPS;
+import static javax.validation.Validation.buildDefaultValidatorFactory;
 import static io.netty.handler.codec.http.HttpResponseStatus.*;
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -28,6 +38,7 @@ class InvoiceServiceRetryIT {
 
     private ObjectMapperUtil mapperUtil;
     private MockWebServer mockWebServer;
+    private SimpleMeterRegistry registry;
     private InvoiceService service;
 
     @BeforeEach
@@ -41,7 +52,13 @@ class InvoiceServiceRetryIT {
         mockWebServer.start();
 
         String baseUrl = mockWebServer.url("/").toString();
-        service = new InvoiceServiceImpl(WebClient.create(baseUrl));
+        registry = new SimpleMeterRegistry();
+        service = new InvoiceServiceImpl(WebClient.create(baseUrl), new NoOpInvoiceCache(), RevalidationCache.disabled(), InvoiceAggregator.disabled(), validator(),
+                InvoiceResilience.defaults(), Batching.disabled(), registry);
+    }
+
+    private static Validator validator() {
+        return buildDefaultValidatorFactory().getValidator();
     }
 
     @AfterEach
@@ -122,6 +139,8 @@ class InvoiceServiceRetryIT {
                 .verify();
 
         verifyNumberOfFindByIdGetRequests(1);
+        assertThat(registry.get("invoice.client.errors").tag("operation", "findById").tag("type", "client").counter().count()).isEqualTo(1);
+        assertThat(registry.find("invoice.client.retries").counter()).isNull();
     }
 
     @Test
@@ -136,6 +155,86 @@ class InvoiceServiceRetryIT {
                 .verify();
 
         verifyNumberOfFindByIdGetRequests(4);
+        assertThat(registry.get("invoice.client.retries").tag("operation", "findById").counter().count()).isEqualTo(3);
+        assertThat(registry.get("invoice.client.retries.exhausted").tag("operation", "findById").counter().count()).isEqualTo(1);
+        assertThat(registry.get("invoice.client.errors").tag("operation", "findById").tag("type", "server").counter().count()).isEqualTo(4);
+        assertThat(registry.get("invoice.client.requests").tag("operation", "findById").tag("outcome", "server_error").timer().count()).isEqualTo(4);
+    }
+
+    @Test
+    void findByIdRetryBudgetExhausted_whenGettingData_thenStopRetrying() throws Exception {
+        String baseUrl = mockWebServer.url("/").toString();
+        InvoiceService budgetedService = new InvoiceServiceImpl(WebClient.create(baseUrl), new NoOpInvoiceCache(), RevalidationCache.disabled(), InvoiceAggregator.disabled(), validator(),
+                InvoiceResilience.defaults().withRetryBudget(new RetryBudget(registry, 0, Map.of(), 1)), Batching.disabled(), registry);
+        for (int i = 0; i < 4; i++) {
+            mockWebServer.enqueue(new MockResponse().setResponseCode(SERVICE_UNAVAILABLE.code()));
+        }
+
+        StepVerifier.create(budgetedService.findById(1L))
+                .expectError(ServiceUnavailableException.class)
+                .verify();
+
+        verifyNumberOfFindByIdGetRequests(2);
+        assertThat(registry.get("invoice.client.retries.throttled").tag("operation", "findById").counter().count()).isEqualTo(1);
+        assertThat(registry.get("invoice.client.retries.exhausted").tag("operation", "findById").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void findByIdRetryAttemptsExhausted_whenBudgeted_thenTakeOneTokenPerRetry() throws Exception {
+        String baseUrl = mockWebServer.url("/").toString();
+        InvoiceService budgetedService = new InvoiceServiceImpl(WebClient.create(baseUrl), new NoOpInvoiceCache(), RevalidationCache.disabled(), InvoiceAggregator.disabled(), validator(),
+                InvoiceResilience.defaults().withRetryBudget(new RetryBudget(registry, 0, Map.of(), 5)), Batching.disabled(), registry);
+        for (int i = 0; i < 4; i++) {
+            mockWebServer.enqueue(new MockResponse().setResponseCode(SERVICE_UNAVAILABLE.code()));
+        }
+
+        StepVerifier.create(budgetedService.findById(1L))
+                .expectError(ServiceUnavailableException.class)
+                .verify();
+
+        verifyNumberOfFindByIdGetRequests(4);
+        assertThat(registry.get("invoice.client.retry.budget").tag("operation", "findById").gauge().value()).isEqualTo(2);
+        assertThat(registry.get("invoice.client.retries.throttled").tag("operation", "findById").counter().count()).isZero();
+        assertThat(registry.get("invoice.client.retries.exhausted").tag("operation", "findById").counter().count()).isEqualTo(1);
+    }
+
+    private String ndjson(long fromId, long toId) {
+        StringBuilder body = new StringBuilder();
+        for (long id = fromId; id <= toId; id++) {
+            body.append(mapperUtil.asJsonString(createInvoice(id, "2021-02-01", id * 1000))).append('\n');
+        }
+        return body.toString();
+    }
+
+    private MockResponse disconnectHalfway(String body) {
+        return new MockResponse().setBody(body)
+                .addHeader("Content-Type", "application/x-ndjson")
+                .setSocketPolicy(SocketPolicy.DISCONNECT_DURING_RESPONSE_BODY);
+    }
+
+    @Test
+    void findAllResumable_whenDisconnectedHalfway_thenResumeAfterLastDelivered() throws Exception {
+        mockWebServer.enqueue(disconnectHalfway(ndjson(1, 4)));
+        mockWebServer.enqueue(new MockResponse().setBody(ndjson(3, 4))
+                .addHeader("Content-Type", "application/x-ndjson"));
+
+        StepVerifier.create(service.findAllResumable().map(Invoice::getId))
+                .expectNext(1L, 2L, 3L, 4L)
+                .verifyComplete();
+
+        assertThat(mockWebServer.takeRequest().getPath()).isEqualTo("/invoices");
+        assertThat(mockWebServer.takeRequest().getPath()).isEqualTo("/invoices?afterId=2");
+    }
+
+    @Test
+    void findAllResumable_whenUpstreamIgnoresAfterId_thenNoDuplicates() {
+        mockWebServer.enqueue(disconnectHalfway(ndjson(1, 4)));
+        mockWebServer.enqueue(new MockResponse().setBody(ndjson(1, 4))
+                .addHeader("Content-Type", "application/x-ndjson"));
+
+        StepVerifier.create(service.findAllResumable().map(Invoice::getId))
+                .expectNext(1L, 2L, 3L, 4L)
+                .verifyComplete();
     }
 
     private void verifyNumberOfFindAllGetRequests(int times) throws Exception {
@@ -0,0 +1,198 @@
+package com.schambeck.webclient.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.schambeck.webclient.aggregate.InvoiceAggregator;
+import com.schambeck.webclient.cache.NoOpInvoiceCache;
+import com.schambeck.webclient.cache.RevalidationCache;
+import com.schambeck.webclient.domain.Invoice;
+import com.schambeck.webclient.json.ObjectMapperUtil;
+import com.schambeck.webclient.reactive.Batching;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS_TIMESTAMPS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static javax.validation.Validation.buildDefaultValidatorFactory;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("integration")
+class InvoiceServiceRevalidationIT {
+
+    private ObjectMapperUtil mapperUtil;
+    private MockWebServer mockWebServer;
+    private SimpleMeterRegistry registry;
+    private InvoiceService service;
+
+    @BeforeEach
+    void setup() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(WRITE_DATES_AS_TIMESTAMPS);
+        mapperUtil = new ObjectMapperUtil(mapper);
+
+        mockWebServer = new MockWebServer();
+        mockWebServer.start();
+
+        String baseUrl = mockWebServer.url("/").toString();
+        registry = new SimpleMeterRegistry();
+        service = new InvoiceServiceImpl(WebClient.create(baseUrl), new NoOpInvoiceCache(), new RevalidationCache(100, 2), InvoiceAggregator.disabled(), buildDefaultValidatorFactory().getValidator(),
+                InvoiceResilience.defaults(), Batching.disabled(), registry);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        mockWebServer.shutdown();
+    }
+
+    private Invoice createInvoice(Long id, String issued, double total) {
+        return new Invoice(id, LocalDate.parse(issued), BigDecimal.valueOf(total));
+    }
+
+    private boolean assertInvoice(Invoice invoice, int id, String issued, double total) {
+        return invoice.getId().equals((long) id)
+                && invoice.getIssued().equals(LocalDate.parse(issued))
+                && invoice.getTotal().equals(BigDecimal.valueOf(total));
+    }
+
+    private double revalidations(String operation, String result) {
+        return registry.get("invoice.client.revalidations").tag("operation", operation).tag("result", result).counter().count();
+    }
+
+    private MockResponse notModified(String eTag) {
+        return new MockResponse().setResponseCode(304).addHeader("ETag", eTag);
+    }
+
+    @Test
+    void findById_whenNotModified_thenReuseCachedInvoice() throws InterruptedException {
+        mockWebServer.enqueue(new MockResponse().setBody(mapperUtil.asJsonString(createInvoice(1L, "2021-02-01", 1000)))
+                .addHeader("Content-Type", "application/json")
+                .addHeader("ETag", "\"v1\""));
+        mockWebServer.enqueue(notModified("\"v1\""));
+
+        StepVerifier.create(service.findById(1L))
+                .expectNextMatches(invoice -> assertInvoice(invoice, 1, "2021-02-01", 1000))
+                .verifyComplete();
+        StepVerifier.create(service.findById(1L))
+                .expectNextMatches(invoice -> assertInvoice(invoice, 1, "2021-02-01", 1000))
+                .verifyComplete();
+
+        assertThat(mockWebServer.takeRequest(1, SECONDS).getHeader("If-None-Match")).isNull();
+        assertThat(mockWebServer.takeRequest(1, SECONDS).getHeader("If-None-Match")).isEqualTo("\"v1\"");
+        assertThat(revalidations("findById", "not_modified")).isEqualTo(1);
+    }
+
+    @Test
+    void findById_whenModified_thenReplaceCachedInvoice() throws InterruptedException {
+        mockWebServer.enqueue(new MockResponse().setBody(mapperUtil.asJsonString(createInvoice(1L, "2021-02-01", 1000)))
+                .addHeader("Content-Type", "application/json")
+                .addHeader("ETag", "\"v1\""));
+        mockWebServer.enqueue(new MockResponse().setBody(mapperUtil.asJsonString(createInvoice(1L, "2021-02-01", 2000)))
+                .addHeader("Content-Type", "application/json")
+                .addHeader("ETag", "\"v2\""));
+        mockWebServer.enqueue(notModified("\"v2\""));
+
+        service.findById(1L).block();
+        StepVerifier.create(service.findById(1L))
+                .expectNextMatches(invoice -> assertInvoice(invoice, 1, "2021-02-01", 2000))
+                .verifyComplete();
+        StepVerifier.create(service.findById(1L))
+                .expectNextMatches(invoice -> assertInvoice(invoice, 1, "2021-02-01", 2000))
+                .verifyComplete();
+
+        mockWebServer.takeRequest(1, SECONDS);
+        mockWebServer.takeRequest(1, SECONDS);
+        assertThat(mockWebServer.takeRequest(1, SECONDS).getHeader("If-None-Match")).isEqualTo("\"v2\"");
+        assertThat(revalidations("findById", "modified")).isEqualTo(1);
+        assertThat(revalidations("findById", "not_modified")).isEqualTo(1);
+    }
+
+    @Test
+    void findById_whenNoValidators_thenUnconditionalRequest() throws InterruptedException {
+        for (int i = 0; i < 2; i++) {
+            mockWebServer.enqueue(new MockResponse().setBody(mapperUtil.asJsonString(createInvoice(1L, "2021-02-01", 1000)))
+                    .addHeader("Content-Type", "application/json"));
+        }
+
+        service.findById(1L).block();
+        service.findById(1L).block();
+
+        mockWebServer.takeRequest(1, SECONDS);
+        assertThat(mockWebServer.takeRequest(1, SECONDS).getHeader("If-None-Match")).isNull();
+    }
+
+    @Test
+    void findAll_whenNotModified_thenReplayCachedInvoices() throws InterruptedException {
+        String ndjson = mapperUtil.asJsonString(createInvoice(1L, "2021-02-01", 1000)) + "\n"
+                + mapperUtil.asJsonString(createInvoice(2L, "2021-02-02", 2000)) + "\n";
+        mockWebServer.enqueue(new MockResponse().setBody(ndjson)
+                .addHeader("Content-Type", "application/x-ndjson")
+                .addHeader("ETag", "\"all-v1\""));
+        mockWebServer.enqueue(notModified("\"all-v1\""));
+
+        StepVerifier.create(service.findAll())
+                .expectNextCount(2)
+                .verifyComplete();
+        StepVerifier.create(service.findAll())
+                .expectNextMatches(invoice -> assertInvoice(invoice, 1, "2021-02-01", 1000))
+                .expectNextMatches(invoice -> assertInvoice(invoice, 2, "2021-02-02", 2000))
+                .verifyComplete();
+
+        mockWebServer.takeRequest(1, SECONDS);
+        assertThat(mockWebServer.takeRequest(1, SECONDS).getHeader("If-None-Match")).isEqualTo("\"all-v1\"");
+        assertThat(revalidations("findAll", "not_modified")).isEqualTo(1);
+    }
+
+    @Test
+    void findAll_whenListingTooLarge_thenNotKept() throws InterruptedException {
+        String ndjson = mapperUtil.asJsonString(createInvoice(1L, "2021-02-01", 1000)) + "\n"
+                + mapperUtil.asJsonString(createInvoice(2L, "2021-02-02", 2000)) + "\n"
+                + mapperUtil.asJsonString(createInvoice(3L, "2021-02-03", 3000)) + "\n";
+        for (int i = 0; i < 2; i++) {
+            mockWebServer.enqueue(new MockResponse().setBody(ndjson)
+                    .addHeader("Content-Type", "application/x-ndjson")
+                    .addHeader("ETag", "\"all-v1\""));
+        }
+
+        StepVerifier.create(service.findAll())
+                .expectNextCount(3)
+                .verifyComplete();
+        StepVerifier.create(service.findAll())
+                .expectNextCount(3)
+                .verifyComplete();
+
+        mockWebServer.takeRequest(1, SECONDS);
+        assertThat(mockWebServer.takeRequest(1, SECONDS).getHeader("If-None-Match")).isNull();
+    }
+
+    @Test
+    void findAll_whenCreated_thenUnconditionalRequest() throws InterruptedException {
+        mockWebServer.enqueue(new MockResponse().setBody(mapperUtil.asJsonString(createInvoice(1L, "2021-02-01", 1000)) + "\n")
+                .addHeader("Content-Type", "application/x-ndjson")
+                .addHeader("ETag", "\"all-v1\""));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(201).setBody(mapperUtil.asJsonString(createInvoice(2L, "2021-02-02", 2000)))
+                .addHeader("Content-Type", "application/json"));
+        mockWebServer.enqueue(new MockResponse().setBody("")
+                .addHeader("Content-Type", "application/x-ndjson"));
+
+        service.findAll().blockLast();
+        service.create(createInvoice(null, "2021-02-02", 2000)).block();
+        service.findAll().blockLast();
+
+        mockWebServer.takeRequest(1, SECONDS);
+        mockWebServer.takeRequest(1, SECONDS);
+        assertThat(mockWebServer.takeRequest(1, SECONDS).getHeader("If-None-Match")).isNull();
+    }
+
+}
@@ -0,0 +1,140 @@
+package com.schambeck.webclient.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.schambeck.webclient.aggregate.InvoiceAggregator;
+import com.schambeck.webclient.cache.NoOpInvoiceCache;
+import com.schambeck.webclient.cache.RevalidationCache;
+import com.schambeck.webclient.domain.Invoice;
+import com.schambeck.webclient.exception.GatewayTimeoutException;
+import com.schambeck.webclient.exception.ServerErrorException;
+import com.schambeck.webclient.json.ObjectMapperUtil;
+import com.schambeck.webclient.reactive.Deadline;
+import com.schambeck.webclient.reactive.Batching;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS_TIMESTAMPS;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static javax.validation.Validation.buildDefaultValidatorFactory;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("integration")
+class InvoiceServiceTimeoutIT {
+
+    private ObjectMapperUtil mapperUtil;
+    private MockWebServer mockWebServer;
+    private InvoiceService service;
+
+    @BeforeEach
+    void setup() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(WRITE_DATES_AS_TIMESTAMPS);
+        mapperUtil = new ObjectMapperUtil(mapper);
+
+        mockWebServer = new MockWebServer();
+        mockWebServer.start();
+
+        InvoiceTimeouts timeouts = new InvoiceTimeouts(new Deadline(Duration.ofMillis(200), Duration.ofMillis(500)),
+                new Deadline(Duration.ofMillis(200), Duration.ofSeconds(5)));
+        String baseUrl = mockWebServer.url("/").toString();
+        service = new InvoiceServiceImpl(WebClient.create(baseUrl), new NoOpInvoiceCache(), RevalidationCache.disabled(), InvoiceAggregator.disabled(), buildDefaultValidatorFactory().getValidator(),
+                InvoiceResilience.defaults().withTimeouts(timeouts), Batching.disabled(), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        mockWebServer.shutdown();
+    }
+
+    private Invoice createInvoice(Long id, String issued, double total) {
+        return new Invoice(id, LocalDate.parse(issued), BigDecimal.valueOf(total));
+    }
+
+    private MockResponse invoiceResponse(Invoice invoice) {
+        return new MockResponse().setBody(mapperUtil.asJsonString(invoice))
+                .addHeader("Content-Type", "application/json");
+    }
+
+    @Test
+    void findById_whenDeadlineSet_thenPropagateRemainingBudget() throws Exception {
+        mockWebServer.enqueue(invoiceResponse(createInvoice(1L, "2021-02-01", 1000)));
+
+        StepVerifier.create(service.findById(1L))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        RecordedRequest request = mockWebServer.takeRequest();
+        assertThat(Long.parseLong(request.getHeader(Deadline.HEADER))).isBetween(1L, 500L);
+    }
+
+    @Test
+    void findById_whenUpstreamStalls_thenFailWithinDeadline() {
+        mockWebServer.enqueue(invoiceResponse(createInvoice(1L, "2021-02-01", 1000)).setHeadersDelay(2000, MILLISECONDS));
+
+        StepVerifier.create(service.findById(1L))
+                .expectError(GatewayTimeoutException.class)
+                .verify(Duration.ofMillis(1500));
+
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    void findAll_whenUpstreamStalls_thenFailWithinDeadline() {
+        mockWebServer.enqueue(new MockResponse().setBody("[]").addHeader("Content-Type", "application/json")
+                .setHeadersDelay(2000, MILLISECONDS));
+
+        StepVerifier.create(service.findAll())
+                .expectError(GatewayTimeoutException.class)
+                .verify(Duration.ofMillis(1500));
+    }
+
+    @Test
+    void findAllRaw_whenResponseTimeoutAfterFirstBuffer_thenFailWithoutRetry() {
+        String firstLine = mapperUtil.asJsonString(createInvoice(1L, "2021-02-01", 1000)) + "\n";
+        String secondLine = mapperUtil.asJsonString(createInvoice(2L, "2021-02-02", 2000)) + "\n";
+        mockWebServer.enqueue(new MockResponse().setBody(firstLine + secondLine).addHeader("Content-Type", "application/x-ndjson")
+                .throttleBody(firstLine.length(), 1000, MILLISECONDS));
+
+        InvoiceTimeouts timeouts = new InvoiceTimeouts(new Deadline(Duration.ofMillis(200), Duration.ofSeconds(5)), Deadline.none());
+        InvoiceService streaming = new InvoiceServiceImpl(WebClient.create(mockWebServer.url("/").toString()), new NoOpInvoiceCache(), RevalidationCache.disabled(),
+                InvoiceAggregator.disabled(), buildDefaultValidatorFactory().getValidator(), InvoiceResilience.defaults().withTimeouts(timeouts),
+                Batching.disabled(), new SimpleMeterRegistry());
+
+        StepVerifier.create(streaming.findAllRaw())
+                .consumeNextWith(buffer -> assertThat(buffer.toString(UTF_8)).isEqualTo(firstLine))
+                .expectErrorMatches(throwable -> throwable instanceof ServerErrorException
+                        && ((ServerErrorException) throwable).getStatusCode() == 504)
+                .verify(Duration.ofSeconds(3));
+
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    void create_whenResponseTimeout_thenFailWithoutRetry() {
+        mockWebServer.enqueue(invoiceResponse(createInvoice(1L, "2021-02-01", 1000)).setHeadersDelay(1000, MILLISECONDS));
+
+        StepVerifier.create(service.create(createInvoice(null, "2021-02-01", 1000)))
+                .expectErrorMatches(throwable -> throwable instanceof ServerErrorException
+                        && ((ServerErrorException) throwable).getStatusCode() == 504)
+                .verify(Duration.ofMillis(900));
+
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(1);
+    }
+
+}